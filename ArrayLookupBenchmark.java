@@ -0,0 +1,148 @@
+import functions.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// Поиск и вставка точек в ArrayTabulatedFunction в зависимости от размера таблицы.
+// Для сравнения рядом измеряется прежний алгоритм: линейный поиск отрезка, два линейных прохода
+// при вставке и поэлементный сдвиг массивов. Сетка неравномерная, чтобы работал двоичный поиск
+public class ArrayLookupBenchmark {
+    private static final int[] SIZES = {1_000, 10_000, 100_000, 1_000_000};
+    private static final double EPSILON = 1e-10;
+
+    public static void main(String[] args) throws InappropriateFunctionPointException {
+        System.out.println("=== ArrayTabulatedFunction: двоичный поиск против линейного, нс на операцию ===");
+        System.out.printf("%-10s %14s %14s %14s %14s%n", "Точек", "значение", "значение лин.", "вставка", "вставка лин.");
+
+        // Первый проход прогревает JIT и не печатается
+        for (int pass = 0; pass < 2; pass++) {
+            for (int size : SIZES) {
+                double[] xs = randomGrid(size, 1);
+                double[] ys = new double[size];
+                for (int i = 0; i < size; i++) {
+                    ys[i] = Math.sin(xs[i]);
+                }
+
+                FunctionPoint[] points = new FunctionPoint[size];
+                for (int i = 0; i < size; i++) {
+                    points[i] = new FunctionPoint(xs[i], ys[i]);
+                }
+                ArrayTabulatedFunction function = new ArrayTabulatedFunction(points);
+
+                double value = measureValues(function, xs[size - 1], 200_000);
+                double linearValue = measureLinearValues(xs, ys, Math.max(200, 20_000_000 / size));
+                double insert = measureInserts(function, xs[size - 1], 2_000);
+                double linearInsert = measureLinearInserts(xs, ys, Math.max(100, 2_000_000 / size));
+
+                if (pass == 1) {
+                    System.out.printf("%-10d %14.1f %14.1f %14.1f %14.1f%n", size, value, linearValue, insert, linearInsert);
+                }
+            }
+        }
+    }
+
+    // Возрастающие X со случайным шагом от 0.5 до 1.5
+    private static double[] randomGrid(int size, long seed) {
+        Random random = new Random(seed);
+        double[] xs = new double[size];
+        double x = 0;
+        for (int i = 0; i < size; i++) {
+            xs[i] = x;
+            x += 0.5 + random.nextDouble();
+        }
+        return xs;
+    }
+
+    private static double measureValues(TabulatedFunction function, double right, int count) {
+        Random random = new Random(2);
+        double sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            sink += function.getFunctionValue(random.nextDouble() * right);
+        }
+        long elapsed = System.nanoTime() - start;
+        consume(sink);
+        return (double) elapsed / count;
+    }
+
+    private static double measureInserts(ArrayTabulatedFunction function, double right, int count)
+            throws InappropriateFunctionPointException {
+        ArrayTabulatedFunction copy = function.clone();
+        Random random = new Random(3);
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            try {
+                copy.addPoint(new FunctionPoint(random.nextDouble() * right, i));
+            } catch (InappropriateFunctionPointException e) {
+                // Совпадение с существующей точкой — пропускаем
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        return (double) elapsed / count;
+    }
+
+    // Прежний getFunctionValue: отрезок ищется проходом от первой точки
+    private static double measureLinearValues(double[] xs, double[] ys, int count) {
+        Random random = new Random(2);
+        int n = xs.length;
+        double sink = 0;
+        long start = System.nanoTime();
+        for (int q = 0; q < count; q++) {
+            double x = random.nextDouble() * xs[n - 1];
+            for (int i = 0; i < n - 1; i++) {
+                if (x >= xs[i] - EPSILON && x <= xs[i + 1] + EPSILON) {
+                    sink += ys[i] + (ys[i + 1] - ys[i]) * (x - xs[i]) / (xs[i + 1] - xs[i]);
+                    break;
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        consume(sink);
+        return (double) elapsed / count;
+    }
+
+    // Прежний addPoint: проверка совпадений, поиск места и поэлементный сдвиг — три линейных прохода
+    private static double measureLinearInserts(double[] sourceXs, double[] sourceYs, int count) {
+        int n = sourceXs.length;
+        double[] xs = Arrays.copyOf(sourceXs, n + count);
+        double[] ys = Arrays.copyOf(sourceYs, n + count);
+        double right = sourceXs[n - 1];
+        Random random = new Random(3);
+
+        long start = System.nanoTime();
+        for (int q = 0; q < count; q++) {
+            double x = random.nextDouble() * right;
+            boolean duplicate = false;
+            for (int i = 0; i < n; i++) {
+                if (Math.abs(xs[i] - x) < EPSILON) {
+                    duplicate = true;
+                    break;
+                }
+            }
+            if (duplicate) {
+                continue;
+            }
+
+            int position = 0;
+            while (position < n && xs[position] < x) {
+                position++;
+            }
+            for (int i = n; i > position; i--) {
+                xs[i] = xs[i - 1];
+                ys[i] = ys[i - 1];
+            }
+            xs[position] = x;
+            ys[position] = q;
+            n++;
+        }
+        long elapsed = System.nanoTime() - start;
+        return (double) elapsed / count;
+    }
+
+    // Не даёт JIT выбросить вычисления
+    private static void consume(double value) {
+        if (value == 42) {
+            System.out.println(value);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+import functions.*;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Скорость двоичного формата outputTabulatedFunction/inputTabulatedFunction на больших таблицах.
+// Сравниваются блочный кодек, прежний способ (getPoint и writeDouble на каждую координату, здесь
+// даже с буферизацией потока) и запись/чтение того же объёма одним буфером через канал — предел диска.
+// Число точек задаётся первым аргументом, по умолчанию 10 000 000
+public class BinaryCodecBenchmark {
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws IOException {
+        int pointsCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        double megabytes = (4 + 16.0 * pointsCount) / 1048576.0;
+
+        double[] values = new double[pointsCount];
+        for (int i = 0; i < pointsCount; i++) {
+            values[i] = Math.sin(i * 1e-3);
+        }
+        TabulatedFunction function = new ArrayTabulatedFunction(0, pointsCount, values);
+        Path file = Files.createTempFile("tabulated", ".bin");
+
+        try {
+            System.out.printf("=== Двоичный формат, точек: %d (%.0f МБ), лучшее из %d, МБ/с ===%n",
+                    pointsCount, megabytes, ROUNDS);
+            System.out.printf("%-20s %12s %12s%n", "Способ", "запись", "чтение");
+
+            double codecWrite = 0;
+            double codecRead = 0;
+            double oldWrite = 0;
+            double oldRead = 0;
+            double rawWrite = 0;
+            double rawRead = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                codecWrite = Math.max(codecWrite, megabytes / writeCodec(function, file));
+                codecRead = Math.max(codecRead, megabytes / readCodec(file));
+                oldWrite = Math.max(oldWrite, megabytes / writeOld(function, file));
+                oldRead = Math.max(oldRead, megabytes / readOld(file));
+                rawWrite = Math.max(rawWrite, megabytes / writeRaw(file, (int) (16L * pointsCount + 4)));
+                rawRead = Math.max(rawRead, megabytes / readRaw(file));
+            }
+
+            System.out.printf("%-20s %12.0f %12.0f%n", "блочный кодек", codecWrite, codecRead);
+            System.out.printf("%-20s %12.0f %12.0f%n", "прежний способ", oldWrite, oldRead);
+            System.out.printf("%-20s %12.0f %12.0f%n", "один буфер, канал", rawWrite, rawRead);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // Время в секундах
+    private static double writeCodec(TabulatedFunction function, Path file) throws IOException {
+        long start = System.nanoTime();
+        try (FileOutputStream out = new FileOutputStream(file.toFile())) {
+            TabulatedFunctions.outputTabulatedFunction(function, out);
+        }
+        return (System.nanoTime() - start) / 1e9;
+    }
+
+    private static double readCodec(Path file) throws IOException {
+        long start = System.nanoTime();
+        TabulatedFunction function;
+        try (FileInputStream in = new FileInputStream(file.toFile())) {
+            function = TabulatedFunctions.inputTabulatedFunction(in);
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        check(function);
+        return elapsed;
+    }
+
+    // Прежний outputTabulatedFunction: копия точки и два вызова writeDouble на каждую точку
+    private static double writeOld(TabulatedFunction function, Path file) throws IOException {
+        long start = System.nanoTime();
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file.toFile()), 1 << 16))) {
+            out.writeInt(function.getPointsCount());
+            for (int i = 0; i < function.getPointsCount(); i++) {
+                FunctionPoint point = function.getPoint(i);
+                out.writeDouble(point.getX());
+                out.writeDouble(point.getY());
+            }
+        }
+        return (System.nanoTime() - start) / 1e9;
+    }
+
+    // Прежний inputTabulatedFunction: массив FunctionPoint, затем конструктор по точкам
+    private static double readOld(Path file) throws IOException {
+        long start = System.nanoTime();
+        TabulatedFunction function;
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file.toFile()), 1 << 16))) {
+            int pointsCount = in.readInt();
+            FunctionPoint[] points = new FunctionPoint[pointsCount];
+            for (int i = 0; i < pointsCount; i++) {
+                double x = in.readDouble();
+                double y = in.readDouble();
+                points[i] = new FunctionPoint(x, y);
+            }
+            function = new ArrayTabulatedFunction(points);
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        check(function);
+        return elapsed;
+    }
+
+    private static double writeRaw(Path file, int bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes);
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        return (System.nanoTime() - start) / 1e9;
+    }
+
+    private static double readRaw(Path file) throws IOException {
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect((int) channel.size());
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Читаем до конца файла
+            }
+        }
+        return (System.nanoTime() - start) / 1e9;
+    }
+
+    private static void check(TabulatedFunction function) {
+        if (function.getPointsCount() < 2) {
+            throw new IllegalStateException("Прочитано слишком мало точек");
+        }
+    }
+}
@@ -0,0 +1,66 @@
+import functions.*;
+
+import java.util.Random;
+
+// Вставки в середину больших таблиц и поиск значений: ChunkedTabulatedFunction против
+// ArrayTabulatedFunction и LinkedListTabulatedFunction. Для списка число вставок уменьшено,
+// так как каждая вставка проходит список от начала
+public class ChunkedInsertBenchmark {
+    private static final int[] SIZES = {10_000, 100_000, 1_000_000};
+
+    public static void main(String[] args) {
+        System.out.println("=== Вставка в середину и вычисление значения, нс на операцию ===");
+        System.out.printf("%-10s %-12s %14s %14s%n", "Точек", "Класс", "вставка", "значение");
+
+        // Первый проход прогревает JIT и не печатается
+        for (int pass = 0; pass < 2; pass++) {
+            for (int size : SIZES) {
+                TabulatedFunction[] functions = {
+                    new ArrayTabulatedFunction(0, size, size),
+                    new LinkedListTabulatedFunction(0, size, size),
+                    new ChunkedTabulatedFunction(0, size, size)
+                };
+                String[] names = {"Array", "LinkedList", "Chunked"};
+
+                for (int k = 0; k < functions.length; k++) {
+                    int inserts = k == 1 ? Math.max(50, 5_000_000 / size) : 20_000;
+                    int lookups = k == 1 ? Math.max(50, 5_000_000 / size) : 200_000;
+                    double insert = measureInserts(functions[k], size, inserts);
+                    double lookup = measureValues(functions[k], size, lookups);
+                    if (pass == 1) {
+                        System.out.printf("%-10d %-12s %14.1f %14.1f%n", size, names[k], insert, lookup);
+                    }
+                }
+            }
+        }
+    }
+
+    // Вставки в случайные места средней половины таблицы
+    private static double measureInserts(TabulatedFunction function, int size, int count) {
+        Random random = new Random(1);
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            double x = size * (0.25 + 0.5 * random.nextDouble());
+            try {
+                function.addPoint(new FunctionPoint(x, i));
+            } catch (InappropriateFunctionPointException e) {
+                // Совпадение с существующей точкой — пропускаем
+            }
+        }
+        return (double) (System.nanoTime() - start) / count;
+    }
+
+    private static double measureValues(TabulatedFunction function, int size, int count) {
+        Random random = new Random(2);
+        double sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            sink += function.getFunctionValue(random.nextDouble() * size);
+        }
+        long elapsed = System.nanoTime() - start;
+        if (sink == 42) {
+            System.out.println(sink);
+        }
+        return (double) elapsed / count;
+    }
+}
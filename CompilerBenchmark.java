@@ -0,0 +1,140 @@
+import functions.*;
+import functions.basic.*;
+import functions.meta.*;
+
+// Вычисление дерева мета-функций: исходное дерево (виртуальные вызовы по узлам) против
+// Functions.compile. Простой цикл с System.nanoTime в одной JVM, без JMH: несколько прогревочных
+// итераций фиксированной длительности, затем измеряемые итерации; печатается среднее ± стандартное
+// отклонение нс на вызов. Форк JVM, защита от удаления мёртвого кода и профилировщики, как в JMH,
+// не используются, поэтому числа — оценка порядка величин.
+// Время компиляции печатается для первой компиляции формы (запуск javac) и для повторной
+// компиляции нового дерева той же формы (класс берётся из кэша).
+// Деревья сбалансированы, чтобы глубина оставалась в пределах FunctionCompiler
+public class CompilerBenchmark {
+    private static final int[] SIZES = {5, 20, 100};
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASURED_ITERATIONS = 10;
+    private static final long ITERATION_NANOS = 200_000_000L;
+    private static final int BATCH = 1024;
+
+    public static void main(String[] args) {
+        double[] xs = new double[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            xs[i] = -3 + 6.0 * i / BATCH;
+        }
+
+        System.out.printf("=== Дерево против компиляции, %d+%d итераций по %d мс, нс на вызов ===%n",
+                WARMUP_ITERATIONS, MEASURED_ITERATIONS, ITERATION_NANOS / 1_000_000);
+        System.out.printf("%-8s %14s %14s %20s %20s %10s%n", "Узлов", "компиляция, мс", "из кэша, мс",
+                "дерево", "компиляция", "ускорение");
+
+        for (int size : SIZES) {
+            Function tree = build(size, 0);
+
+            long start = System.nanoTime();
+            Function compiled = Functions.compile(tree);
+            double compileMillis = (System.nanoTime() - start) / 1e6;
+            if (compiled == tree) {
+                System.out.printf("%-8d компилятор недоступен, дерево возвращено без изменений%n", size);
+                continue;
+            }
+            check(tree, compiled, xs);
+
+            Function sameShape = build(size, 0);
+            start = System.nanoTime();
+            Function recompiled = Functions.compile(sameShape);
+            double cachedMillis = (System.nanoTime() - start) / 1e6;
+            check(sameShape, recompiled, xs);
+
+            double[] interpreted = measure(tree, xs);
+            double[] generated = measure(compiled, xs);
+            System.out.printf("%-8d %14.1f %14.3f %11.2f ± %6.2f %11.2f ± %6.2f %9.1fx%n", size, compileMillis,
+                    cachedMillis, interpreted[0], interpreted[1], generated[0], generated[1], interpreted[0] / generated[0]);
+        }
+    }
+
+    // Сбалансированное дерево ровно из size узлов: листья Sin, Cos, Exp,
+    // одноместные узлы Shift и Scale, двуместные Sum, Mult и Composition
+    private static Function build(int size, int seed) {
+        if (size == 1) {
+            switch (seed % 3) {
+                case 0:
+                    return new Sin();
+                case 1:
+                    return new Cos();
+                default:
+                    return new Exp();
+            }
+        }
+        if (size == 2) {
+            return seed % 2 == 0 ? new Shift(build(1, seed + 1), 0.5, 0.25) : new Scale(build(1, seed + 1), 0.5, 2);
+        }
+
+        if (seed % 3 == 2 && size >= 5) {
+            // Внешний синус ограничивает значения, чтобы экспоненты не уходили в бесконечность;
+            // Composition, Sin и Sum — три узла
+            int left = (size - 3) / 2;
+            return new Composition(new Sin(), new Sum(build(left, seed + 1), build(size - 3 - left, seed + 2)));
+        }
+
+        int left = (size - 1) / 2;
+        Function first = build(left, seed + 1);
+        Function second = build(size - 1 - left, seed + 2);
+        return seed % 3 == 0 ? new Sum(first, second) : new Mult(first, second);
+    }
+
+    // Результаты обеих форм должны совпадать побитово
+    private static void check(Function tree, Function compiled, double[] xs) {
+        for (double x : xs) {
+            if (Double.compare(tree.getFunctionValue(x), compiled.getFunctionValue(x)) != 0) {
+                throw new IllegalStateException("Значения дерева и скомпилированной функции различаются при x = " + x);
+            }
+        }
+    }
+
+    // Среднее и стандартное отклонение нс на вызов по измеряемым итерациям
+    private static double[] measure(Function function, double[] xs) {
+        double[] results = new double[MEASURED_ITERATIONS];
+        for (int iteration = 0; iteration < WARMUP_ITERATIONS + MEASURED_ITERATIONS; iteration++) {
+            double nanosPerCall = iterate(function, xs);
+            if (iteration >= WARMUP_ITERATIONS) {
+                results[iteration - WARMUP_ITERATIONS] = nanosPerCall;
+            }
+        }
+
+        double mean = 0;
+        for (double result : results) {
+            mean += result;
+        }
+        mean /= results.length;
+        double variance = 0;
+        for (double result : results) {
+            variance += (result - mean) * (result - mean);
+        }
+        return new double[] {mean, Math.sqrt(variance / (results.length - 1))};
+    }
+
+    // Одна итерация: пачки вызовов, пока не истечёт ITERATION_NANOS
+    private static double iterate(Function function, double[] xs) {
+        double sink = 0;
+        long calls = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            for (double x : xs) {
+                sink += function.getFunctionValue(x);
+            }
+            calls += xs.length;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < ITERATION_NANOS);
+        consume(sink);
+        return (double) elapsed / calls;
+    }
+
+    // Не даёт JIT выбросить вычисления
+    private static void consume(double value) {
+        if (value == 42) {
+            System.out.println(value);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+import functions.*;
+
+import java.util.Iterator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+// Масштабирование чтений потокобезопасных табулированных функций с числом потоков-читателей.
+// Один писатель изменяет значение в точке раз в миллисекунду; для сравнения та же таблица
+// читается через synchronized-обёртку
+public class ConcurrentBenchmark {
+    private static final int POINTS = 10_000;
+    private static final long DURATION_MS = 1000;
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=== Чтения при одном писателе, операций в миллисекунду ===");
+        System.out.println("Процессоров: " + Runtime.getRuntime().availableProcessors());
+
+        int maxThreads = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+        // Прогрев JIT
+        run(new ConcurrentTabulatedFunction(0, 100, POINTS), 2, 300);
+        run(new CopyOnWriteTabulatedFunction(0, 100, POINTS), 2, 300);
+        run(new SynchronizedTabulatedFunction(new ArrayTabulatedFunction(0, 100, POINTS)), 2, 300);
+
+        System.out.printf("%-10s %16s %16s %16s%n", "Читателей", "Concurrent", "CopyOnWrite", "synchronized");
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            double concurrent = run(new ConcurrentTabulatedFunction(0, 100, POINTS), threads, DURATION_MS);
+            double copyOnWrite = run(new CopyOnWriteTabulatedFunction(0, 100, POINTS), threads, DURATION_MS);
+            double synchronizedReads = run(
+                    new SynchronizedTabulatedFunction(new ArrayTabulatedFunction(0, 100, POINTS)), threads, DURATION_MS);
+            System.out.printf("%-10d %16.0f %16.0f %16.0f%n", threads, concurrent, copyOnWrite, synchronizedReads);
+        }
+    }
+
+    // Число вычислений getFunctionValue в миллисекунду всеми читателями вместе
+    private static double run(TabulatedFunction function, int readers, long durationMs) throws Exception {
+        AtomicBoolean stop = new AtomicBoolean();
+        LongAdder operations = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[readers + 1];
+
+        for (int t = 0; t < readers; t++) {
+            final long seed = 31 * t + 7;
+            threads[t] = new Thread(() -> {
+                long state = seed;
+                double sink = 0;
+                long count = 0;
+                awaitQuietly(start);
+                while (!stop.get()) {
+                    for (int i = 0; i < 256; i++) {
+                        state = state * 6364136223846793005L + 1442695040888963407L;
+                        double x = (state >>> 11) * 0x1.0p-53 * 100;
+                        sink += function.getFunctionValue(x);
+                    }
+                    count += 256;
+                }
+                operations.add(count);
+                if (sink == 42) {
+                    System.out.println(sink);
+                }
+            });
+        }
+
+        threads[readers] = new Thread(() -> {
+            awaitQuietly(start);
+            int index = 0;
+            while (!stop.get()) {
+                function.setPointY(index, index);
+                index = (index + 1) % POINTS;
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        Thread.sleep(durationMs);
+        stop.set(true);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double elapsedMs = (System.nanoTime() - begin) / 1e6;
+        return operations.sum() / elapsedMs;
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Та же таблица, в которой каждое обращение выполняется под монитором
+    private static class SynchronizedTabulatedFunction implements TabulatedFunction {
+        private final TabulatedFunction function;
+
+        SynchronizedTabulatedFunction(TabulatedFunction function) {
+            this.function = function;
+        }
+
+        public synchronized double getLeftDomainBorder() {
+            return function.getLeftDomainBorder();
+        }
+
+        public synchronized double getRightDomainBorder() {
+            return function.getRightDomainBorder();
+        }
+
+        public synchronized double getFunctionValue(double x) {
+            return function.getFunctionValue(x);
+        }
+
+        public synchronized int getPointsCount() {
+            return function.getPointsCount();
+        }
+
+        public synchronized FunctionPoint getPoint(int index) {
+            return function.getPoint(index);
+        }
+
+        public synchronized double getPointX(int index) {
+            return function.getPointX(index);
+        }
+
+        public synchronized double getPointY(int index) {
+            return function.getPointY(index);
+        }
+
+        public synchronized void setPointY(int index, double y) {
+            function.setPointY(index, y);
+        }
+
+        public synchronized void setPoint(int index, FunctionPoint point) throws InappropriateFunctionPointException {
+            function.setPoint(index, point);
+        }
+
+        public synchronized void setPointX(int index, double x) throws InappropriateFunctionPointException {
+            function.setPointX(index, x);
+        }
+
+        public synchronized void deletePoint(int index) {
+            function.deletePoint(index);
+        }
+
+        public synchronized void addPoint(FunctionPoint point) throws InappropriateFunctionPointException {
+            function.addPoint(point);
+        }
+
+        public synchronized Iterator<FunctionPoint> iterator() {
+            return function.clone().iterator();
+        }
+
+        public synchronized TabulatedFunction clone() {
+            return new SynchronizedTabulatedFunction(function.clone());
+        }
+    }
+}
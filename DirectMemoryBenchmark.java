@@ -0,0 +1,106 @@
+import functions.*;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+// Занимаемая память и паузы сборщика мусора при живой таблице из pointsCount точек:
+// DirectTabulatedFunction (прямые буферы) против ArrayTabulatedFunction и LinkedListTabulatedFunction.
+// Пауза полной сборки измеряется вызовами System.gc(), сборки при обычной работе — по времени
+// сборщиков за цикл выделения короткоживущих объектов. Последний столбец — память вне кучи,
+// оставшаяся сразу после close() (для Direct она должна освобождаться без сборки мусора).
+// Число точек задаётся первым аргументом, по умолчанию 2 000 000
+public class DirectMemoryBenchmark {
+    public static void main(String[] args) {
+        int pointsCount = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+
+        System.out.println("=== Память и сборка мусора, точек: " + pointsCount + " ===");
+        System.out.printf("%-12s %10s %12s %16s %16s %16s%n", "Класс", "куча, МБ", "вне кучи, МБ",
+                "полная сборка, мс", "сборки в работе, мс", "после close, МБ");
+
+        String[] names = {"Direct", "Array", "LinkedList"};
+        for (int k = 0; k < names.length; k++) {
+            long heapBefore = usedHeap();
+            long directBefore = usedDirect();
+
+            TabulatedFunction function;
+            if (k == 0) {
+                function = new DirectTabulatedFunction(0, 1, pointsCount);
+            } else if (k == 1) {
+                function = new ArrayTabulatedFunction(0, 1, pointsCount);
+            } else {
+                function = new LinkedListTabulatedFunction(0, 1, pointsCount);
+            }
+
+            double heap = (usedHeap() - heapBefore) / 1048576.0;
+            double direct = (usedDirect() - directBefore) / 1048576.0;
+            double fullGc = measureFullGc();
+            double churnGc = measureChurnGc();
+
+            // Таблица должна оставаться живой до конца измерений
+            if (function.getFunctionValue(0.5) != 0) {
+                System.out.println(function.getFunctionValue(0.5));
+            }
+
+            // Замер сразу после close(), без сборки мусора
+            if (function instanceof DirectTabulatedFunction) {
+                ((DirectTabulatedFunction) function).close();
+            }
+            double afterClose = (usedDirect() - directBefore) / 1048576.0;
+            System.out.printf("%-12s %10.1f %12.1f %16.1f %16.1f %16.1f%n", names[k], heap, direct, fullGc, churnGc,
+                    afterClose);
+            function = null;
+        }
+    }
+
+    // Занятая куча после полной сборки
+    private static long usedHeap() {
+        System.gc();
+        System.gc();
+        return Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+    }
+
+    private static long usedDirect() {
+        List<BufferPoolMXBean> pools = ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class);
+        for (BufferPoolMXBean pool : pools) {
+            if (pool.getName().equals("direct")) {
+                return pool.getMemoryUsed();
+            }
+        }
+        return 0;
+    }
+
+    // Средняя длительность System.gc()
+    private static double measureFullGc() {
+        int rounds = 5;
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            System.gc();
+        }
+        return (System.nanoTime() - start) / 1e6 / rounds;
+    }
+
+    // Суммарное время сборщиков за выделение ~4 ГБ короткоживущих массивов
+    private static double measureChurnGc() {
+        long before = totalGcMillis();
+        long sink = 0;
+        for (int i = 0; i < 4_000_000; i++) {
+            double[] garbage = new double[128];
+            garbage[i & 127] = i;
+            sink += garbage.length;
+        }
+        if (sink == 42) {
+            System.out.println(sink);
+        }
+        return totalGcMillis() - before;
+    }
+
+    private static long totalGcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(collector.getCollectionTime(), 0);
+        }
+        return total;
+    }
+}
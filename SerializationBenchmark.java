@@ -0,0 +1,82 @@
+import functions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+// Сериализация и десериализация больших таблиц через ObjectOutputStream/ObjectInputStream в память:
+// LinkedListTabulatedFunction (writeExternal/readExternal без рекурсии по узлам) против
+// ArrayTabulatedFunction с тем же форматом потока. Прежняя сериализация списка по умолчанию
+// на таком размере падала с StackOverflowError, поэтому здесь не измеряется.
+// Число точек задаётся первым аргументом, по умолчанию 1 000 000
+public class SerializationBenchmark {
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws IOException, ClassNotFoundException {
+        int pointsCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        double[] values = new double[pointsCount];
+        for (int i = 0; i < pointsCount; i++) {
+            values[i] = Math.sin(i * 1e-3);
+        }
+        TabulatedFunction[] functions = {
+            new ArrayTabulatedFunction(0, pointsCount, values),
+            new LinkedListTabulatedFunction(0, pointsCount, values)
+        };
+        String[] names = {"Array", "LinkedList"};
+
+        System.out.printf("=== Сериализация, точек: %d, среднее по %d проходам ===%n", pointsCount, ROUNDS);
+        System.out.printf("%-12s %10s %16s %16s %12s %12s%n", "Класс", "байт, МБ",
+                "запись, мс", "чтение, мс", "запись, МБ/с", "чтение, МБ/с");
+
+        // Первый проход прогревает JIT и не печатается
+        for (int pass = 0; pass < 2; pass++) {
+            for (int k = 0; k < functions.length; k++) {
+                long writeNanos = 0;
+                long readNanos = 0;
+                byte[] bytes = null;
+                for (int round = 0; round < ROUNDS; round++) {
+                    long start = System.nanoTime();
+                    bytes = serialize(functions[k]);
+                    writeNanos += System.nanoTime() - start;
+
+                    start = System.nanoTime();
+                    TabulatedFunction copy = deserialize(bytes);
+                    readNanos += System.nanoTime() - start;
+                    check(functions[k], copy);
+                }
+
+                if (pass == 1) {
+                    double megabytes = bytes.length / 1048576.0;
+                    double writeMillis = writeNanos / 1e6 / ROUNDS;
+                    double readMillis = readNanos / 1e6 / ROUNDS;
+                    System.out.printf("%-12s %10.1f %16.1f %16.1f %12.0f %12.0f%n", names[k], megabytes,
+                            writeMillis, readMillis, megabytes * 1000 / writeMillis, megabytes * 1000 / readMillis);
+                }
+            }
+        }
+    }
+
+    private static byte[] serialize(TabulatedFunction function) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(function);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static TabulatedFunction deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (TabulatedFunction) in.readObject();
+        }
+    }
+
+    // Копия должна совпадать с исходной таблицей
+    private static void check(TabulatedFunction original, TabulatedFunction copy) {
+        if (original.getClass() != copy.getClass() || !original.equals(copy)) {
+            throw new IllegalStateException("Копия не совпадает с исходной таблицей");
+        }
+    }
+}
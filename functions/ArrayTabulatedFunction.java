@@ -5,12 +5,26 @@ import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
 public class ArrayTabulatedFunction implements TabulatedFunction, Serializable, Externalizable {
-    private FunctionPoint[] points;
+    // Координаты точек хранятся в двух параллельных массивах
+    private double[] xs;
+    private double[] ys;
     private int pointsCount;
+    // Признак равномерной сетки по X и её шаг
+    private boolean uniform;
+    private double step;
+    // Дерево Фенвика по площадям отрезков для integral() — кэш, который строится при первом
+    // запросе, поддерживается при изменении точек и сбрасывается при вставке и удалении.
+    // Поле volatile, а дерево публикуется только целиком построенным, поэтому integral()
+    // можно вызывать из нескольких потоков, пока функцию никто не изменяет
+    private volatile double[] areaTree;
+    // Число поправок дерева с момента построения; после pointsCount поправок дерево строится
+    // заново, чтобы не накапливались ошибки округления
+    private int areaUpdates;
 
     private static final double EPSILON = 1e-10;
     
@@ -36,7 +50,8 @@ public class ArrayTabulatedFunction implements TabulatedFunction, Serializable,
 
     public ArrayTabulatedFunction() {
         this.pointsCount = 0;
-        this.points = new FunctionPoint[10];
+        this.xs = new double[10];
+        this.ys = new double[10];
     }
 
     private boolean equals(double a, double b) {
@@ -47,6 +62,73 @@ public class ArrayTabulatedFunction implements TabulatedFunction, Serializable,
         return a < b || equals(a, b);
     }
 
+    // Индекс первой точки, у которой X строго больше x (двоичный поиск)
+    private int upperBound(double x) {
+        int low = 0;
+        int high = pointsCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (xs[mid] <= x) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Индекс левого конца первого отрезка [x1, x2], для которого x1 <= x <= x2 с точностью EPSILON
+    private int findSegmentIndex(double x) {
+        return adjustSegmentIndex(locateSegment(x, -1), x);
+    }
+
+    // Индекс последней точки с X <= x, но не больше pointsCount - 2.
+    // hint — предполагаемый ответ (например, результат для предыдущего x пакета) или -1
+    private int locateSegment(double x, int hint) {
+        if (hint >= 0 && xs[hint] <= x && (hint == pointsCount - 2 || x < xs[hint + 1])) {
+            return hint;
+        }
+
+        int index;
+        if (uniform) {
+            // На равномерной сетке индекс вычисляется за O(1) и уточняется на случай погрешности округления
+            index = Math.min(Math.max((int) ((x - xs[0]) / step), 0), pointsCount - 2);
+            while (index < pointsCount - 2 && xs[index + 1] <= x) {
+                index++;
+            }
+            while (index > 0 && xs[index] > x) {
+                index--;
+            }
+        } else {
+            index = Math.min(Math.max(upperBound(x) - 1, 0), pointsCount - 2);
+        }
+        return index;
+    }
+
+    // Сдвигает индекс влево, пока x попадает в предыдущий отрезок с точностью EPSILON
+    private int adjustSegmentIndex(int index, double x) {
+        while (index > 0 && lessOrEqual(x, xs[index])) {
+            index--;
+        }
+        return index;
+    }
+
+    private double interpolate(int i, double x) {
+        double x1 = xs[i];
+        double x2 = xs[i + 1];
+
+        if (equals(x, x1)) {
+            return ys[i];
+        }
+        if (equals(x, x2)) {
+            return ys[i + 1];
+        }
+
+        double y1 = ys[i];
+        double y2 = ys[i + 1];
+        return y1 + (y2 - y1) * (x - x1) / (x2 - x1);
+    }
+
     public ArrayTabulatedFunction(double leftX, double rightX, int pointsCount) {
         if (leftX >= rightX) {
             throw new IllegalArgumentException("Левая граница должна быть меньше правой");
@@ -57,13 +139,14 @@ public class ArrayTabulatedFunction implements TabulatedFunction, Serializable,
         }
         
         this.pointsCount = pointsCount;
-        this.points = new FunctionPoint[pointsCount + 10];
+        this.xs = new double[pointsCount + 10];
+        this.ys = new double[pointsCount + 10];
 
-        double step = (rightX - leftX) / (pointsCount - 1);
+        this.step = (rightX - leftX) / (pointsCount - 1);
+        this.uniform = true;
 
         for (int i = 0; i < pointsCount; i++) {
-            double x = leftX + i * step;
-            points[i] = new FunctionPoint(x, 0.0);
+            xs[i] = leftX + i * step;
         }
     }
 
@@ -77,14 +160,16 @@ public class ArrayTabulatedFunction implements TabulatedFunction, Serializable,
         }
         
         this.pointsCount = values.length;
-        this.points = new FunctionPoint[pointsCount + 10];
+        this.xs = new double[pointsCount + 10];
+        this.ys = new double[pointsCount + 10];
 
-        double step = (rightX - leftX) / (pointsCount - 1);
+        this.step = (rightX - leftX) / (pointsCount - 1);
+        this.uniform = true;
 
         for (int i = 0; i < pointsCount; i++) {
-            double x = leftX + i * step;
-            points[i] = new FunctionPoint(x, values[i]);
+            xs[i] = leftX + i * step;
         }
+        System.arraycopy(values, 0, ys, 0, pointsCount);
     }
 
     public ArrayTabulatedFunction(FunctionPoint[] points) {
@@ -99,19 +184,42 @@ public class ArrayTabulatedFunction implements TabulatedFunction, Serializable,
         }
         
         this.pointsCount = points.length;
-        this.points = new FunctionPoint[pointsCount + 10];
+        this.xs = new double[pointsCount + 10];
+        this.ys = new double[pointsCount + 10];
         
         for (int i = 0; i < pointsCount; i++) {
-            this.points[i] = new FunctionPoint(points[i]);
+            xs[i] = points[i].getX();
+            ys[i] = points[i].getY();
         }
+
+        detectUniformGrid();
+    }
+
+    // Проверяет, образуют ли X равномерную сетку. Небольшое отклонение допустимо:
+    // индекс, вычисленный по шагу, всё равно уточняется в findSegmentIndex
+    private void detectUniformGrid() {
+        uniform = false;
+        if (pointsCount < 2) {
+            return;
+        }
+
+        double candidateStep = (xs[pointsCount - 1] - xs[0]) / (pointsCount - 1);
+        for (int i = 1; i < pointsCount - 1; i++) {
+            if (Math.abs(xs[i] - (xs[0] + i * candidateStep)) > candidateStep * 1e-6) {
+                return;
+            }
+        }
+
+        step = candidateStep;
+        uniform = true;
     }
 
     public double getLeftDomainBorder() {
-        return points[0].getX();
+        return xs[0];
     }
 
     public double getRightDomainBorder() {
-        return points[pointsCount - 1].getX();
+        return xs[pointsCount - 1];
     }
 
     public double getFunctionValue(double x) {
@@ -119,25 +227,26 @@ public class ArrayTabulatedFunction implements TabulatedFunction, Serializable,
             return Double.NaN;
         }
 
-        for (int i = 0; i < pointsCount - 1; i++) {
-            double x1 = points[i].getX();
-            double x2 = points[i + 1].getX();
-
-            if (lessOrEqual(x1, x) && lessOrEqual(x, x2)) {
-                if (equals(x, x1)) {
-                    return points[i].getY();
-                }
-                if (equals(x, x2)) {
-                    return points[i + 1].getY();
-                }
+        return interpolate(findSegmentIndex(x), x);
+    }
 
-                double y1 = points[i].getY();
-                double y2 = points[i + 1].getY();
-                return y1 + (y2 - y1) * (x - x1) / (x2 - x1);
+    @Override
+    public void getFunctionValues(double[] arguments, double[] values, int from, int to) {
+        double left = getLeftDomainBorder();
+        double right = getRightDomainBorder();
+        // Для упорядоченных аргументов отрезок предыдущей точки обычно подходит и для следующей
+        int segment = -1;
+
+        for (int i = from; i < to; i++) {
+            double x = arguments[i];
+            if (x < left || x > right) {
+                values[i] = Double.NaN;
+                continue;
             }
-        }
 
-        return Double.NaN;
+            segment = locateSegment(x, segment);
+            values[i] = interpolate(adjustSegmentIndex(segment, x), x);
+        }
     }
 
     public int getPointsCount() {
@@ -149,7 +258,7 @@ public class ArrayTabulatedFunction implements TabulatedFunction, Serializable,
             throw new FunctionPointIndexOutOfBoundsException("Индекс " + index + " вне границ [0, " + (pointsCount - 1) + "]");
         }
 
-        return new FunctionPoint(points[index]);
+        return new FunctionPoint(xs[index], ys[index]);
     }
 
     public void setPoint(int index, FunctionPoint point) throws InappropriateFunctionPointException {
@@ -157,15 +266,23 @@ public class ArrayTabulatedFunction implements TabulatedFunction, Serializable,
             throw new FunctionPointIndexOutOfBoundsException("Индекс " + index + " вне границ [0, " + (pointsCount - 1) + "]");
         }
 
-        if (index > 0 && lessOrEqual(point.getX(), points[index - 1].getX())) {
+        if (index > 0 && lessOrEqual(point.getX(), xs[index - 1])) {
             throw new InappropriateFunctionPointException("X координата должна быть больше предыдущей точки");
         }
 
-        if (index < pointsCount - 1 && lessOrEqual(points[index + 1].getX(), point.getX())) {
+        if (index < pointsCount - 1 && lessOrEqual(xs[index + 1], point.getX())) {
             throw new InappropriateFunctionPointException("X координата должна быть меньше следующей точки");
         }
 
-        points[index] = new FunctionPoint(point);
+        if (xs[index] != point.getX()) {
+            uniform = false;
+        }
+
+        double leftArea = segmentArea(index - 1);
+        double rightArea = segmentArea(index);
+        xs[index] = point.getX();
+        ys[index] = point.getY();
+        updateAreas(index, leftArea, rightArea);
     }
 
     public double getPointX(int index) {
@@ -173,7 +290,7 @@ public class ArrayTabulatedFunction implements TabulatedFunction, Serializable,
             throw new FunctionPointIndexOutOfBoundsException("Индекс " + index + " вне границ [0, " + (pointsCount - 1) + "]");
         }
 
-        return points[index].getX();
+        return xs[index];
     }
 
     public void setPointX(int index, double x) throws InappropriateFunctionPointException {
@@ -181,16 +298,22 @@ public class ArrayTabulatedFunction implements TabulatedFunction, Serializable,
             throw new FunctionPointIndexOutOfBoundsException("Индекс " + index + " вне границ [0, " + (pointsCount - 1) + "]");
         }
 
-        if (index > 0 && lessOrEqual(x, points[index - 1].getX())) {
+        if (index > 0 && lessOrEqual(x, xs[index - 1])) {
             throw new InappropriateFunctionPointException("X координата должна быть больше предыдущей точки");
         }
 
-        if (index < pointsCount - 1 && lessOrEqual(points[index + 1].getX(), x)) {
+        if (index < pointsCount - 1 && lessOrEqual(xs[index + 1], x)) {
             throw new InappropriateFunctionPointException("X координата должна быть меньше следующей точки");
         }
 
-        double oldY = points[index].getY();
-        points[index] = new FunctionPoint(x, oldY);
+        if (xs[index] != x) {
+            uniform = false;
+        }
+
+        double leftArea = segmentArea(index - 1);
+        double rightArea = segmentArea(index);
+        xs[index] = x;
+        updateAreas(index, leftArea, rightArea);
     }
 
     public double getPointY(int index) {
@@ -198,7 +321,7 @@ public class ArrayTabulatedFunction implements TabulatedFunction, Serializable,
             throw new FunctionPointIndexOutOfBoundsException("Индекс " + index + " вне границ [0, " + (pointsCount - 1) + "]");
         }
 
-        return points[index].getY();
+        return ys[index];
     }
 
     public void setPointY(int index, double y) {
@@ -206,8 +329,83 @@ public class ArrayTabulatedFunction implements TabulatedFunction, Serializable,
            throw new FunctionPointIndexOutOfBoundsException("Индекс " + index + " вне границ [0, " + (pointsCount - 1) + "]"); 
         }
 
-        double oldX = points[index].getX();
-        points[index] = new FunctionPoint(oldX, y);
+        double leftArea = segmentArea(index - 1);
+        double rightArea = segmentArea(index);
+        ys[index] = y;
+        updateAreas(index, leftArea, rightArea);
+    }
+
+    // Площадь трапеции под отрезком [x_i, x_i+1]; для несуществующего отрезка 0
+    private double segmentArea(int segment) {
+        if (areaTree == null || segment < 0 || segment >= pointsCount - 1) {
+            return 0.0;
+        }
+        return (ys[segment] + ys[segment + 1]) * (xs[segment + 1] - xs[segment]) / 2.0;
+    }
+
+    // Переносит в дерево изменение площадей двух отрезков, соседних с точкой index
+    private void updateAreas(int index, double oldLeftArea, double oldRightArea) {
+        if (areaTree == null) {
+            return;
+        }
+        if (++areaUpdates > pointsCount) {
+            areaTree = null;
+            return;
+        }
+        addArea(index - 1, segmentArea(index - 1) - oldLeftArea);
+        addArea(index, segmentArea(index) - oldRightArea);
+    }
+
+    private void addArea(int segment, double delta) {
+        if (segment < 0 || segment >= pointsCount - 1) {
+            return;
+        }
+        double[] tree = areaTree;
+        for (int i = segment + 1; i < pointsCount; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    // Строит дерево Фенвика за O(n): элемент i (с 1) хранит сумму площадей отрезков (i - (i & -i), i]
+    private double[] buildAreaTree() {
+        double[] tree = new double[pointsCount];
+        for (int i = 1; i < pointsCount; i++) {
+            tree[i] += (ys[i - 1] + ys[i]) * (xs[i] - xs[i - 1]) / 2.0;
+            int parent = i + (i & -i);
+            if (parent < pointsCount) {
+                tree[parent] += tree[i];
+            }
+        }
+        areaUpdates = 0;
+        areaTree = tree;
+        return tree;
+    }
+
+    // Сумма площадей отрезков с номерами меньше segment
+    private static double prefixArea(double[] tree, int segment) {
+        double sum = 0.0;
+        for (int i = segment; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    // Площадь под функцией от левой границы до x
+    private double cumulativeArea(double[] tree, double x) {
+        int segment = locateSegment(x, -1);
+        double y = interpolate(segment, x);
+        return prefixArea(tree, segment) + (ys[segment] + y) * (x - xs[segment]) / 2.0;
+    }
+
+    // Интеграл за O(log n) по дереву площадей отрезков
+    @Override
+    public double integral(double a, double b) {
+        Functions.checkIntegrationInterval(this, a, b);
+        double[] tree = areaTree;
+        if (tree == null) {
+            tree = buildAreaTree();
+        }
+        return cumulativeArea(tree, b) - cumulativeArea(tree, a);
     }
 
     public void deletePoint(int index) {
@@ -219,45 +417,92 @@ public class ArrayTabulatedFunction implements TabulatedFunction, Serializable,
             throw new FunctionPointIndexOutOfBoundsException("Индекс " + index + " вне границ [0, " + (pointsCount - 1) + "]");
         }
 
-        for (int i = index; i < pointsCount - 1; i++) {
-            points[i] = points[i + 1];
+        // Удаление крайней точки сохраняет равномерность сетки
+        if (index != 0 && index != pointsCount - 1) {
+            uniform = false;
         }
 
+        System.arraycopy(xs, index + 1, xs, index, pointsCount - index - 1);
+        System.arraycopy(ys, index + 1, ys, index, pointsCount - index - 1);
+
         pointsCount--;
-        points[pointsCount] = null;
+        areaTree = null;
     }
 
     public void addPoint(FunctionPoint point) throws InappropriateFunctionPointException {
-        for (int i = 0; i < pointsCount; i++) {
-            if (equals(points[i].getX(), point.getX())) {
-                throw new InappropriateFunctionPointException("Точка с X=" + point.getX() + " уже существует");
-            }
+        double newX = point.getX();
+        double newY = point.getY();
+
+        // Точки упорядочены, поэтому совпасть с новой может только одна из соседних
+        int insertIndex = upperBound(newX);
+        if ((insertIndex > 0 && equals(xs[insertIndex - 1], newX))
+                || (insertIndex < pointsCount && equals(xs[insertIndex], newX))) {
+            throw new InappropriateFunctionPointException("Точка с X=" + newX + " уже существует");
         }
 
-        FunctionPoint newPoint = new FunctionPoint(point);
+        ensureCapacity(pointsCount + 1);
+        
+        System.arraycopy(xs, insertIndex, xs, insertIndex + 1, pointsCount - insertIndex);
+        System.arraycopy(ys, insertIndex, ys, insertIndex + 1, pointsCount - insertIndex);
 
-        int insertIndex = 0;
-        while (insertIndex < pointsCount && lessOrEqual(points[insertIndex].getX(), newPoint.getX())) {
-            insertIndex++;
-        }
+        xs[insertIndex] = newX;
+        ys[insertIndex] = newY;
+        pointsCount++;
+        uniform = false;
+        areaTree = null;
+    }
 
-        if (pointsCount == points.length) {
-            int newCapacity = points.length + 10;
-            FunctionPoint[] newArray = new FunctionPoint[newCapacity];
-            for (int i = 0; i < pointsCount; i++) {
-                newArray[i] = points[i];
+    @Override
+    public void addPoints(FunctionPoint[] points) throws InappropriateFunctionPointException {
+        FunctionPoint[] batch = TabulatedFunctions.sortPointsByX(points);
+        int count = batch.length;
+        if (count == 0) {
+            return;
+        }
+
+        // Сначала проверяем весь набор, чтобы при ошибке функция осталась неизменной
+        int index = 0;
+        for (FunctionPoint point : batch) {
+            double x = point.getX();
+            while (index < pointsCount && xs[index] < x) {
+                index++;
+            }
+            if ((index > 0 && equals(xs[index - 1], x)) || (index < pointsCount && equals(xs[index], x))) {
+                throw new InappropriateFunctionPointException("Точка с X=" + x + " уже существует");
             }
-            points = newArray;
         }
-        
-        if (pointsCount - insertIndex > 0) {
-            for (int i = pointsCount; i > insertIndex; i--) {
-                points[i] = points[i - 1];
+
+        ensureCapacity(pointsCount + count);
+
+        // Слияние с конца на месте: каждая точка сдвигается не более одного раза
+        int target = pointsCount + count - 1;
+        int existing = pointsCount - 1;
+        int added = count - 1;
+        while (added >= 0) {
+            if (existing >= 0 && xs[existing] > batch[added].getX()) {
+                xs[target] = xs[existing];
+                ys[target] = ys[existing];
+                existing--;
+            } else {
+                xs[target] = batch[added].getX();
+                ys[target] = batch[added].getY();
+                added--;
             }
+            target--;
         }
 
-        points[insertIndex] = newPoint;
-        pointsCount++;
+        pointsCount += count;
+        areaTree = null;
+        detectUniformGrid();
+    }
+
+    // Ёмкость растёт геометрически, чтобы серия вставок не приводила к частым перевыделениям
+    private void ensureCapacity(int capacity) {
+        if (capacity > xs.length) {
+            int newCapacity = Math.max(capacity, xs.length + (xs.length >> 1) + 1);
+            xs = Arrays.copyOf(xs, newCapacity);
+            ys = Arrays.copyOf(ys, newCapacity);
+        }
     }
 
     // Итератор
@@ -276,7 +521,9 @@ public class ArrayTabulatedFunction implements TabulatedFunction, Serializable,
                 if (!hasNext()) {
                     throw new NoSuchElementException("Нет следующего элемента");
                 }
-                return new FunctionPoint(points[currentIndex++]);
+                FunctionPoint point = new FunctionPoint(xs[currentIndex], ys[currentIndex]);
+                currentIndex++;
+                return point;
             }
             
             @Override
@@ -290,20 +537,23 @@ public class ArrayTabulatedFunction implements TabulatedFunction, Serializable,
     public void writeExternal(ObjectOutput out) throws IOException {
         out.writeInt(pointsCount);
         for (int i = 0; i < pointsCount; i++) {
-            out.writeDouble(points[i].getX());
-            out.writeDouble(points[i].getY());
+            out.writeDouble(xs[i]);
+            out.writeDouble(ys[i]);
         }
     }
     
     @Override
     public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
         pointsCount = in.readInt();
-        points = new FunctionPoint[pointsCount + 10];
+        xs = new double[pointsCount + 10];
+        ys = new double[pointsCount + 10];
         for (int i = 0; i < pointsCount; i++) {
-            double x = in.readDouble();
-            double y = in.readDouble();
-            points[i] = new FunctionPoint(x, y);
+            xs[i] = in.readDouble();
+            ys[i] = in.readDouble();
         }
+
+        areaTree = null;
+        detectUniformGrid();
     }
     
     @Override
@@ -315,7 +565,7 @@ public class ArrayTabulatedFunction implements TabulatedFunction, Serializable,
             if (i > 0) {
                 sb.append(", ");
             }
-            sb.append(points[i].toString());
+            sb.append("(").append(xs[i]).append("; ").append(ys[i]).append(")");
         }
         
         sb.append("}");
@@ -338,7 +588,7 @@ public class ArrayTabulatedFunction implements TabulatedFunction, Serializable,
                 ArrayTabulatedFunction otherArray = (ArrayTabulatedFunction) obj;
                 
                 for (int i = 0; i < pointsCount; i++) {
-                    if (!points[i].equals(otherArray.points[i])) {
+                    if (!equals(xs[i], otherArray.xs[i]) || !equals(ys[i], otherArray.ys[i])) {
                         return false;
                     }
                 }
@@ -361,7 +611,9 @@ public class ArrayTabulatedFunction implements TabulatedFunction, Serializable,
         int hash = pointsCount;
         
         for (int i = 0; i < pointsCount; i++) {
-            hash ^= points[i].hashCode();
+            long xBits = Double.doubleToLongBits(xs[i]);
+            long yBits = Double.doubleToLongBits(ys[i]);
+            hash ^= (int)(xBits ^ (xBits >>> 32)) ^ (int)(yBits ^ (yBits >>> 32));
         }
         
         return hash;
@@ -372,11 +624,11 @@ public class ArrayTabulatedFunction implements TabulatedFunction, Serializable,
         try {
             ArrayTabulatedFunction cloned = (ArrayTabulatedFunction) super.clone();
             
-            cloned.points = new FunctionPoint[this.points.length];
-            for (int i = 0; i < this.pointsCount; i++) {
-                if (this.points[i] != null) {
-                    cloned.points[i] = this.points[i].clone();
-                }
+            cloned.xs = this.xs.clone();
+            cloned.ys = this.ys.clone();
+            double[] tree = areaTree;
+            if (tree != null) {
+                cloned.areaTree = tree.clone();
             }
             
             return cloned;
@@ -0,0 +1,117 @@
+package functions;
+
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+
+// Блочное чтение и запись двоичного формата outputTabulatedFunction:
+// int количество точек, затем пары (x, y) типа double, всё в порядке big-endian.
+// Координаты переносятся блоками через ByteBuffer; для файловых потоков
+// используется канал, чтобы данные не копировались лишний раз
+final class BinaryTabulatedFunctionCodec {
+    // Количество точек в одном блоке (16 байт на точку)
+    private static final int BLOCK_POINTS = 4096;
+
+    private BinaryTabulatedFunctionCodec() {
+        throw new AssertionError("Нельзя создавать объекты класса BinaryTabulatedFunctionCodec");
+    }
+
+    // Точки обходятся по индексу через getPointX/getPointY, без создания FunctionPoint
+    static void write(TabulatedFunction function, OutputStream out) throws IOException {
+        int pointsCount = function.getPointsCount();
+        FileChannel channel = out instanceof FileOutputStream ? ((FileOutputStream) out).getChannel() : null;
+
+        // Для небольших функций буферы не больше самой функции
+        int blockPoints = Math.max(1, Math.min(BLOCK_POINTS, pointsCount));
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + blockPoints * 2 * Double.BYTES);
+        double[] block = new double[blockPoints * 2];
+
+        // Количество точек уходит вместе с первым блоком
+        buffer.putInt(pointsCount);
+        int index = 0;
+        do {
+            int count = Math.min(blockPoints, pointsCount - index);
+            for (int i = 0; i < count; i++) {
+                block[2 * i] = function.getPointX(index + i);
+                block[2 * i + 1] = function.getPointY(index + i);
+            }
+            index += count;
+
+            // Представление DoubleBuffer начинается с текущей позиции буфера
+            buffer.asDoubleBuffer().put(block, 0, 2 * count);
+            buffer.position(buffer.position() + 2 * count * Double.BYTES);
+
+            buffer.flip();
+            if (channel != null) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } else {
+                out.write(buffer.array(), 0, buffer.limit());
+            }
+            buffer.clear();
+        } while (index < pointsCount);
+
+        out.flush();
+    }
+
+    // Читает ровно столько байт, сколько занимает функция, и возвращает массивы {xs, ys}
+    static double[][] read(InputStream in) throws IOException {
+        FileChannel channel = in instanceof FileInputStream ? ((FileInputStream) in).getChannel() : null;
+        ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+        fill(in, channel, header);
+        int pointsCount = header.getInt(0);
+        if (pointsCount < 0) {
+            throw new IOException("Неверное количество точек: " + pointsCount);
+        }
+
+        double[] xs = new double[pointsCount];
+        double[] ys = new double[pointsCount];
+        int blockPoints = Math.max(1, Math.min(BLOCK_POINTS, pointsCount));
+        ByteBuffer buffer = ByteBuffer.allocate(blockPoints * 2 * Double.BYTES);
+        double[] block = new double[blockPoints * 2];
+        DoubleBuffer doubles = buffer.asDoubleBuffer();
+
+        int index = 0;
+        while (index < pointsCount) {
+            int count = Math.min(blockPoints, pointsCount - index);
+            buffer.clear();
+            buffer.limit(2 * count * Double.BYTES);
+            fill(in, channel, buffer);
+
+            doubles.clear();
+            doubles.get(block, 0, 2 * count);
+            for (int i = 0; i < count; i++) {
+                xs[index + i] = block[2 * i];
+                ys[index + i] = block[2 * i + 1];
+            }
+            index += count;
+        }
+
+        return new double[][] {xs, ys};
+    }
+
+    // Заполняет буфер до limit
+    private static void fill(InputStream in, FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read;
+            if (channel != null) {
+                read = channel.read(buffer);
+            } else {
+                read = in.read(buffer.array(), buffer.position(), buffer.remaining());
+                if (read > 0) {
+                    buffer.position(buffer.position() + read);
+                }
+            }
+            if (read < 0) {
+                throw new EOFException("Неожиданный конец потока");
+            }
+        }
+    }
+}
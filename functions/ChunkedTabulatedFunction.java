@@ -0,0 +1,641 @@
+package functions;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// Табулированная функция на развёрнутом списке: точки хранятся в упорядоченной
+// последовательности блоков фиксированной ёмкости из примитивных массивов.
+// Поиск — двоичный по первым X блоков и внутри блока, вставка сдвигает только один блок.
+// Размеры блоков хранятся в дереве Фенвика, поэтому поиск блока по индексу точки и учёт
+// вставки или удаления точки занимают O(log числа блоков). При делении, слиянии и удалении
+// блоков дерево перестраивается за O(числа блоков), но это происходит редко
+public class ChunkedTabulatedFunction implements TabulatedFunction, Serializable, Externalizable {
+    private double[][] chunkXs;
+    private double[][] chunkYs;
+    private int[] chunkSizes;
+    // Дерево Фенвика по chunkSizes (индексы с 1): сумма размеров блоков до данного
+    private int[] sizeTree;
+    private int chunkCount;
+    private int pointsCount;
+
+    private static final int CHUNK_CAPACITY = 512;
+    // При построении блоки заполняются не полностью, чтобы первые вставки не делили их
+    private static final int CHUNK_FILL = CHUNK_CAPACITY * 3 / 4;
+
+    private static final long serialVersionUID = 1L;
+
+    // Фабрика для ChunkedTabulatedFunction
+    public static class ChunkedTabulatedFunctionFactory implements TabulatedFunctionFactory {
+        @Override
+        public TabulatedFunction createTabulatedFunction(double leftX, double rightX, int pointsCount) {
+            return new ChunkedTabulatedFunction(leftX, rightX, pointsCount);
+        }
+
+        @Override
+        public TabulatedFunction createTabulatedFunction(double leftX, double rightX, double[] values) {
+            return new ChunkedTabulatedFunction(leftX, rightX, values);
+        }
+
+        @Override
+        public TabulatedFunction createTabulatedFunction(FunctionPoint[] points) {
+            return new ChunkedTabulatedFunction(points);
+        }
+    }
+
+    public ChunkedTabulatedFunction() {
+        fill(new double[0], new double[0], 0);
+    }
+
+    public ChunkedTabulatedFunction(double leftX, double rightX, int pointsCount) {
+        if (leftX >= rightX) {
+            throw new IllegalArgumentException("Левая граница должна быть меньше правой");
+        }
+
+        if (pointsCount < 2) {
+            throw new IllegalArgumentException("Количество точек должно быть не менее 2");
+        }
+
+        double[] xs = new double[pointsCount];
+        double step = (rightX - leftX) / (pointsCount - 1);
+        for (int i = 0; i < pointsCount; i++) {
+            xs[i] = leftX + i * step;
+        }
+
+        fill(xs, new double[pointsCount], pointsCount);
+    }
+
+    public ChunkedTabulatedFunction(double leftX, double rightX, double[] values) {
+        if (leftX >= rightX) {
+            throw new IllegalArgumentException("Левая граница должна быть меньше правой");
+        }
+
+        if (values.length < 2) {
+            throw new IllegalArgumentException("Количество точек должно быть не менее 2");
+        }
+
+        double[] xs = new double[values.length];
+        double step = (rightX - leftX) / (values.length - 1);
+        for (int i = 0; i < values.length; i++) {
+            xs[i] = leftX + i * step;
+        }
+
+        fill(xs, values, values.length);
+    }
+
+    public ChunkedTabulatedFunction(FunctionPoint[] points) {
+        if (points.length < 2) {
+            throw new IllegalArgumentException("Количество точек должно быть не менее 2");
+        }
+
+        for (int i = 1; i < points.length; i++) {
+            if (points[i].getX() <= points[i - 1].getX()) {
+                throw new IllegalArgumentException("Точки должны быть строго упорядочены по возрастанию X");
+            }
+        }
+
+        double[] xs = new double[points.length];
+        double[] ys = new double[points.length];
+        for (int i = 0; i < points.length; i++) {
+            xs[i] = points[i].getX();
+            ys[i] = points[i].getY();
+        }
+
+        fill(xs, ys, points.length);
+    }
+
+    // Раскладывает упорядоченные точки по блокам
+    private void fill(double[] xs, double[] ys, int count) {
+        int capacity = Math.max((count + CHUNK_FILL - 1) / CHUNK_FILL, 1);
+        chunkXs = new double[capacity][];
+        chunkYs = new double[capacity][];
+        chunkSizes = new int[capacity];
+        chunkCount = 0;
+        pointsCount = count;
+
+        for (int start = 0; start < count; start += CHUNK_FILL) {
+            int size = Math.min(CHUNK_FILL, count - start);
+            chunkXs[chunkCount] = new double[CHUNK_CAPACITY];
+            chunkYs[chunkCount] = new double[CHUNK_CAPACITY];
+            System.arraycopy(xs, start, chunkXs[chunkCount], 0, size);
+            System.arraycopy(ys, start, chunkYs[chunkCount], 0, size);
+            chunkSizes[chunkCount] = size;
+            chunkCount++;
+        }
+        rebuildSizeTree();
+    }
+
+    // Строит дерево Фенвика по текущим размерам блоков за O(числа блоков)
+    private void rebuildSizeTree() {
+        if (sizeTree == null || sizeTree.length < chunkSizes.length + 1) {
+            sizeTree = new int[chunkSizes.length + 1];
+        }
+        for (int i = 1; i <= chunkCount; i++) {
+            sizeTree[i] = chunkSizes[i - 1];
+        }
+        for (int i = 1; i <= chunkCount; i++) {
+            int parent = i + (i & -i);
+            if (parent <= chunkCount) {
+                sizeTree[parent] += sizeTree[i];
+            }
+        }
+    }
+
+    // Изменение размера блока на delta
+    private void addChunkSize(int chunk, int delta) {
+        for (int i = chunk + 1; i <= chunkCount; i += i & -i) {
+            sizeTree[i] += delta;
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= pointsCount) {
+            throw new FunctionPointIndexOutOfBoundsException("Индекс " + index + " вне границ [0, " + (pointsCount - 1) + "]");
+        }
+    }
+
+    // Положение точки с глобальным индексом index: спуск по дереву Фенвика даёт сразу
+    // номер блока (старшие 32 бита) и смещение в нём (младшие 32 бита)
+    private long locate(int index) {
+        int chunk = 0;
+        int rest = index;
+        for (int step = Integer.highestOneBit(chunkCount); step > 0; step >>= 1) {
+            int next = chunk + step;
+            if (next <= chunkCount && sizeTree[next] <= rest) {
+                chunk = next;
+                rest -= sizeTree[next];
+            }
+        }
+        return (long) chunk << 32 | rest;
+    }
+
+    // Последний блок, первая точка которого имеет X <= x (или 0)
+    private int findChunkByX(double x) {
+        int low = 0;
+        int high = chunkCount - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (chunkXs[mid][0] <= x) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    // Индекс первой точки блока, у которой X строго больше x
+    private int upperBound(int chunk, double x) {
+        double[] xs = chunkXs[chunk];
+        int low = 0;
+        int high = chunkSizes[chunk];
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (xs[mid] <= x) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private double pointX(int index) {
+        long position = locate(index);
+        return chunkXs[(int) (position >>> 32)][(int) position];
+    }
+
+    public double getLeftDomainBorder() {
+        return chunkXs[0][0];
+    }
+
+    public double getRightDomainBorder() {
+        return chunkXs[chunkCount - 1][chunkSizes[chunkCount - 1] - 1];
+    }
+
+    public double getFunctionValue(double x) {
+        if (x < getLeftDomainBorder() || x > getRightDomainBorder()) {
+            return Double.NaN;
+        }
+
+        return interpolate(x);
+    }
+
+    @Override
+    public void getFunctionValues(double[] arguments, double[] values, int from, int to) {
+        double left = getLeftDomainBorder();
+        double right = getRightDomainBorder();
+
+        for (int i = from; i < to; i++) {
+            double x = arguments[i];
+            values[i] = x < left || x > right ? Double.NaN : interpolate(x);
+        }
+    }
+
+    // Значение на первом отрезке [x1, x2], для которого x1 <= x <= x2 с точностью EPSILON
+    private double interpolate(double x) {
+        int chunk = findChunkByX(x);
+        int offset = Math.max(upperBound(chunk, x) - 1, 0);
+
+        // Последняя точка не может быть левым концом отрезка
+        if (chunk == chunkCount - 1 && offset == chunkSizes[chunk] - 1) {
+            if (offset > 0) {
+                offset--;
+            } else {
+                chunk--;
+                offset = chunkSizes[chunk] - 1;
+            }
+        }
+
+        while ((chunk > 0 || offset > 0) && TabulatedSearch.lessOrEqual(x, chunkXs[chunk][offset])) {
+            if (offset > 0) {
+                offset--;
+            } else {
+                chunk--;
+                offset = chunkSizes[chunk] - 1;
+            }
+        }
+
+        double x1 = chunkXs[chunk][offset];
+        double y1 = chunkYs[chunk][offset];
+        double x2;
+        double y2;
+        if (offset + 1 < chunkSizes[chunk]) {
+            x2 = chunkXs[chunk][offset + 1];
+            y2 = chunkYs[chunk][offset + 1];
+        } else {
+            x2 = chunkXs[chunk + 1][0];
+            y2 = chunkYs[chunk + 1][0];
+        }
+
+        return TabulatedSearch.interpolate(x, x1, y1, x2, y2);
+    }
+
+    public int getPointsCount() {
+        return pointsCount;
+    }
+
+    public FunctionPoint getPoint(int index) {
+        checkIndex(index);
+
+        long position = locate(index);
+        int chunk = (int) (position >>> 32);
+        int offset = (int) position;
+        return new FunctionPoint(chunkXs[chunk][offset], chunkYs[chunk][offset]);
+    }
+
+    public void setPoint(int index, FunctionPoint point) throws InappropriateFunctionPointException {
+        setPointX(index, point.getX());
+        setPointY(index, point.getY());
+    }
+
+    public double getPointX(int index) {
+        checkIndex(index);
+
+        return pointX(index);
+    }
+
+    public void setPointX(int index, double x) throws InappropriateFunctionPointException {
+        checkIndex(index);
+
+        if (index > 0 && TabulatedSearch.lessOrEqual(x, pointX(index - 1))) {
+            throw new InappropriateFunctionPointException("X координата должна быть больше предыдущей точки");
+        }
+
+        if (index < pointsCount - 1 && TabulatedSearch.lessOrEqual(pointX(index + 1), x)) {
+            throw new InappropriateFunctionPointException("X координата должна быть меньше следующей точки");
+        }
+
+        long position = locate(index);
+        chunkXs[(int) (position >>> 32)][(int) position] = x;
+    }
+
+    public double getPointY(int index) {
+        checkIndex(index);
+
+        long position = locate(index);
+        return chunkYs[(int) (position >>> 32)][(int) position];
+    }
+
+    public void setPointY(int index, double y) {
+        checkIndex(index);
+
+        long position = locate(index);
+        chunkYs[(int) (position >>> 32)][(int) position] = y;
+    }
+
+    public void deletePoint(int index) {
+        if (pointsCount < 3) {
+            throw new IllegalStateException("Нельзя удалить точку: минимальное количество точек - 3");
+        }
+
+        checkIndex(index);
+
+        long position = locate(index);
+        int chunk = (int) (position >>> 32);
+        int offset = (int) position;
+        int size = chunkSizes[chunk];
+        System.arraycopy(chunkXs[chunk], offset + 1, chunkXs[chunk], offset, size - offset - 1);
+        System.arraycopy(chunkYs[chunk], offset + 1, chunkYs[chunk], offset, size - offset - 1);
+        chunkSizes[chunk]--;
+        addChunkSize(chunk, -1);
+        pointsCount--;
+
+        if (chunkSizes[chunk] == 0) {
+            removeChunk(chunk);
+        } else if (chunk + 1 < chunkCount && chunkSizes[chunk] + chunkSizes[chunk + 1] <= CHUNK_CAPACITY / 2) {
+            mergeWithNext(chunk);
+        } else if (chunk > 0 && chunkSizes[chunk - 1] + chunkSizes[chunk] <= CHUNK_CAPACITY / 2) {
+            mergeWithNext(chunk - 1);
+        }
+    }
+
+    public void addPoint(FunctionPoint point) throws InappropriateFunctionPointException {
+        double newX = point.getX();
+
+        if (chunkCount == 0) {
+            insertChunkSlot(0);
+            chunkXs[0] = new double[CHUNK_CAPACITY];
+            chunkYs[0] = new double[CHUNK_CAPACITY];
+            chunkSizes[0] = 0;
+            rebuildSizeTree();
+        }
+
+        int chunk = findChunkByX(newX);
+        int offset = upperBound(chunk, newX);
+
+        // Точки упорядочены, поэтому совпасть с новой может только одна из соседних
+        boolean duplicate;
+        if (offset > 0) {
+            duplicate = TabulatedSearch.equals(chunkXs[chunk][offset - 1], newX);
+        } else {
+            duplicate = chunk > 0 && TabulatedSearch.equals(chunkXs[chunk - 1][chunkSizes[chunk - 1] - 1], newX);
+        }
+        if (offset < chunkSizes[chunk]) {
+            duplicate |= TabulatedSearch.equals(chunkXs[chunk][offset], newX);
+        } else if (chunk + 1 < chunkCount) {
+            duplicate |= TabulatedSearch.equals(chunkXs[chunk + 1][0], newX);
+        }
+        if (duplicate) {
+            throw new InappropriateFunctionPointException("Точка с X=" + newX + " уже существует");
+        }
+
+        if (chunkSizes[chunk] == CHUNK_CAPACITY) {
+            splitChunk(chunk);
+            if (offset > chunkSizes[chunk]) {
+                offset -= chunkSizes[chunk];
+                chunk++;
+            }
+        }
+
+        int size = chunkSizes[chunk];
+        System.arraycopy(chunkXs[chunk], offset, chunkXs[chunk], offset + 1, size - offset);
+        System.arraycopy(chunkYs[chunk], offset, chunkYs[chunk], offset + 1, size - offset);
+        chunkXs[chunk][offset] = newX;
+        chunkYs[chunk][offset] = point.getY();
+        chunkSizes[chunk]++;
+        addChunkSize(chunk, 1);
+        pointsCount++;
+    }
+
+    @Override
+    public void addPoints(FunctionPoint[] points) throws InappropriateFunctionPointException {
+        FunctionPoint[] batch = TabulatedFunctions.sortPointsByX(points);
+        int count = batch.length;
+        if (count == 0) {
+            return;
+        }
+
+        // Слияние в новые массивы; блоки заменяются только если в наборе нет совпадений
+        double[] xs = new double[pointsCount + count];
+        double[] ys = new double[pointsCount + count];
+        int target = 0;
+        int added = 0;
+        for (int c = 0; c < chunkCount; c++) {
+            for (int i = 0; i < chunkSizes[c]; i++) {
+                double x = chunkXs[c][i];
+                while (added < count && batch[added].getX() < x) {
+                    target = appendChecked(xs, ys, target, batch[added]);
+                    added++;
+                }
+                if (added < count && TabulatedSearch.equals(batch[added].getX(), x)) {
+                    throw new InappropriateFunctionPointException("Точка с X=" + batch[added].getX() + " уже существует");
+                }
+                xs[target] = x;
+                ys[target] = chunkYs[c][i];
+                target++;
+            }
+        }
+        while (added < count) {
+            target = appendChecked(xs, ys, target, batch[added]);
+            added++;
+        }
+
+        fill(xs, ys, target);
+    }
+
+    private int appendChecked(double[] xs, double[] ys, int target, FunctionPoint point)
+            throws InappropriateFunctionPointException {
+        if (target > 0 && TabulatedSearch.equals(xs[target - 1], point.getX())) {
+            throw new InappropriateFunctionPointException("Точка с X=" + point.getX() + " уже существует");
+        }
+        xs[target] = point.getX();
+        ys[target] = point.getY();
+        return target + 1;
+    }
+
+    // Делит заполненный блок пополам; вторая половина становится новым блоком
+    private void splitChunk(int chunk) {
+        insertChunkSlot(chunk + 1);
+
+        int half = chunkSizes[chunk] / 2;
+        int rest = chunkSizes[chunk] - half;
+        chunkXs[chunk + 1] = new double[CHUNK_CAPACITY];
+        chunkYs[chunk + 1] = new double[CHUNK_CAPACITY];
+        System.arraycopy(chunkXs[chunk], half, chunkXs[chunk + 1], 0, rest);
+        System.arraycopy(chunkYs[chunk], half, chunkYs[chunk + 1], 0, rest);
+        chunkSizes[chunk] = half;
+        chunkSizes[chunk + 1] = rest;
+        rebuildSizeTree();
+    }
+
+    private void mergeWithNext(int chunk) {
+        int size = chunkSizes[chunk];
+        int nextSize = chunkSizes[chunk + 1];
+        System.arraycopy(chunkXs[chunk + 1], 0, chunkXs[chunk], size, nextSize);
+        System.arraycopy(chunkYs[chunk + 1], 0, chunkYs[chunk], size, nextSize);
+        chunkSizes[chunk] = size + nextSize;
+        removeChunk(chunk + 1);
+    }
+
+    private void insertChunkSlot(int chunk) {
+        if (chunkCount == chunkXs.length) {
+            int newCapacity = chunkXs.length * 2;
+            chunkXs = Arrays.copyOf(chunkXs, newCapacity);
+            chunkYs = Arrays.copyOf(chunkYs, newCapacity);
+            chunkSizes = Arrays.copyOf(chunkSizes, newCapacity);
+        }
+
+        int moved = chunkCount - chunk;
+        System.arraycopy(chunkXs, chunk, chunkXs, chunk + 1, moved);
+        System.arraycopy(chunkYs, chunk, chunkYs, chunk + 1, moved);
+        System.arraycopy(chunkSizes, chunk, chunkSizes, chunk + 1, moved);
+        chunkCount++;
+    }
+
+    private void removeChunk(int chunk) {
+        int moved = chunkCount - chunk - 1;
+        System.arraycopy(chunkXs, chunk + 1, chunkXs, chunk, moved);
+        System.arraycopy(chunkYs, chunk + 1, chunkYs, chunk, moved);
+        System.arraycopy(chunkSizes, chunk + 1, chunkSizes, chunk, moved);
+        chunkCount--;
+        chunkXs[chunkCount] = null;
+        chunkYs[chunkCount] = null;
+        rebuildSizeTree();
+    }
+
+    // Итератор
+    @Override
+    public Iterator<FunctionPoint> iterator() {
+        return new Iterator<FunctionPoint>() {
+            private int chunk = 0;
+            private int offset = 0;
+
+            @Override
+            public boolean hasNext() {
+                return chunk < chunkCount && offset < chunkSizes[chunk];
+            }
+
+            @Override
+            public FunctionPoint next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("Нет следующего элемента");
+                }
+                FunctionPoint point = new FunctionPoint(chunkXs[chunk][offset], chunkYs[chunk][offset]);
+                offset++;
+                if (offset == chunkSizes[chunk]) {
+                    chunk++;
+                    offset = 0;
+                }
+                return point;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("Удаление не поддерживается");
+            }
+        };
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeInt(pointsCount);
+        for (int c = 0; c < chunkCount; c++) {
+            for (int i = 0; i < chunkSizes[c]; i++) {
+                out.writeDouble(chunkXs[c][i]);
+                out.writeDouble(chunkYs[c][i]);
+            }
+        }
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        int count = in.readInt();
+        double[] xs = new double[count];
+        double[] ys = new double[count];
+        for (int i = 0; i < count; i++) {
+            xs[i] = in.readDouble();
+            ys[i] = in.readDouble();
+        }
+        fill(xs, ys, count);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{");
+
+        for (int c = 0; c < chunkCount; c++) {
+            for (int i = 0; i < chunkSizes[c]; i++) {
+                if (c > 0 || i > 0) {
+                    sb.append(", ");
+                }
+                sb.append("(").append(chunkXs[c][i]).append("; ").append(chunkYs[c][i]).append(")");
+            }
+        }
+
+        sb.append("}");
+        return sb.toString();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null) return false;
+
+        if (obj instanceof TabulatedFunction) {
+            TabulatedFunction other = (TabulatedFunction) obj;
+
+            if (this.getPointsCount() != other.getPointsCount()) {
+                return false;
+            }
+
+            int chunk = 0;
+            int offset = 0;
+            for (FunctionPoint point : other) {
+                if (!TabulatedSearch.equals(chunkXs[chunk][offset], point.getX()) || !TabulatedSearch.equals(chunkYs[chunk][offset], point.getY())) {
+                    return false;
+                }
+                offset++;
+                if (offset == chunkSizes[chunk]) {
+                    chunk++;
+                    offset = 0;
+                }
+            }
+
+            return true;
+        }
+
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = pointsCount;
+
+        for (int c = 0; c < chunkCount; c++) {
+            for (int i = 0; i < chunkSizes[c]; i++) {
+                long xBits = Double.doubleToLongBits(chunkXs[c][i]);
+                long yBits = Double.doubleToLongBits(chunkYs[c][i]);
+                hash ^= (int)(xBits ^ (xBits >>> 32)) ^ (int)(yBits ^ (yBits >>> 32));
+            }
+        }
+
+        return hash;
+    }
+
+    @Override
+    public ChunkedTabulatedFunction clone() {
+        try {
+            ChunkedTabulatedFunction cloned = (ChunkedTabulatedFunction) super.clone();
+
+            cloned.chunkXs = new double[chunkXs.length][];
+            cloned.chunkYs = new double[chunkYs.length][];
+            for (int c = 0; c < chunkCount; c++) {
+                cloned.chunkXs[c] = chunkXs[c].clone();
+                cloned.chunkYs[c] = chunkYs[c].clone();
+            }
+            cloned.chunkSizes = chunkSizes.clone();
+            cloned.sizeTree = sizeTree.clone();
+
+            return cloned;
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError("Клонирование не поддерживается", e);
+        }
+    }
+}
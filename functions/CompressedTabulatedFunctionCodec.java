@@ -0,0 +1,401 @@
+package functions;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+// Сжатый двоичный формат табулированной функции.
+//
+// Заголовок (big-endian): int сигнатура MAGIC, byte версия, int количество точек n,
+// byte флаги; при флаге FLAG_UNIFORM далее идут double leftX и double rightX, и все X
+// восстанавливаются как leftX + i * step, как в конструкторах по границам.
+// Затем битовый поток, разбитый на кадры «int длина, байты»:
+//   X (если сетка неравномерная): биты первого X, далее разности вторых разностей
+//     битовых представлений соседних X в зигзаг-кодировке с префиксами
+//     0 | 10+7 | 110+12 | 1110+20 | 11110+32 | 11111+64 бит;
+//   Y: биты первого Y, далее XOR с предыдущим значением по схеме Gorilla:
+//     0 + длина серии повторов в гамма-коде Элиаса,
+//     10 + значащие биты в прежнем окне,
+//     11 + 6 бит ведущих нулей + 6 бит (длина - 1) + значащие биты.
+// Кодирование и декодирование не создают объектов на точку
+final class CompressedTabulatedFunctionCodec {
+    static final int MAGIC = 0x5441425A;
+    static final int VERSION = 1;
+    private static final int FLAG_UNIFORM = 1;
+    private static final int BLOCK_SIZE = 1 << 16;
+
+    private CompressedTabulatedFunctionCodec() {
+        throw new AssertionError("Нельзя создавать объекты класса CompressedTabulatedFunctionCodec");
+    }
+
+    // Совпадают ли X в точности с сеткой, которую строят конструкторы по границам
+    private static boolean isExactUniformGrid(TabulatedFunction function) {
+        int pointsCount = function.getPointsCount();
+        if (pointsCount < 2) {
+            return false;
+        }
+
+        double leftX = function.getPointX(0);
+        double rightX = function.getPointX(pointsCount - 1);
+        if (!(leftX < rightX)) {
+            return false;
+        }
+
+        double step = (rightX - leftX) / (pointsCount - 1);
+        for (int i = 1; i < pointsCount; i++) {
+            if (function.getPointX(i) != leftX + i * step) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static void write(TabulatedFunction function, OutputStream out) throws IOException {
+        int pointsCount = function.getPointsCount();
+        boolean uniform = isExactUniformGrid(function);
+
+        DataOutputStream header = new DataOutputStream(out);
+        header.writeInt(MAGIC);
+        header.writeByte(VERSION);
+        header.writeInt(pointsCount);
+        header.writeByte(uniform ? FLAG_UNIFORM : 0);
+        if (uniform) {
+            header.writeDouble(function.getPointX(0));
+            header.writeDouble(function.getPointX(pointsCount - 1));
+        }
+
+        BitOutput bits = new BitOutput(out);
+        if (pointsCount > 0) {
+            if (!uniform) {
+                writeXs(function, bits);
+            }
+            writeYs(function, bits);
+        }
+        bits.flush();
+        out.flush();
+    }
+
+    private static void writeXs(TabulatedFunction function, BitOutput bits) throws IOException {
+        int pointsCount = function.getPointsCount();
+        long previous = Double.doubleToRawLongBits(function.getPointX(0));
+        long previousDelta = 0;
+        bits.write(previous, 64);
+
+        for (int i = 1; i < pointsCount; i++) {
+            long current = Double.doubleToRawLongBits(function.getPointX(i));
+            long delta = current - previous;
+            long deltaOfDelta = delta - previousDelta;
+            long zigzag = (deltaOfDelta << 1) ^ (deltaOfDelta >> 63);
+
+            if (zigzag == 0) {
+                bits.write(0b0, 1);
+            } else if ((zigzag >>> 7) == 0) {
+                bits.write(0b10, 2);
+                bits.write(zigzag, 7);
+            } else if ((zigzag >>> 12) == 0) {
+                bits.write(0b110, 3);
+                bits.write(zigzag, 12);
+            } else if ((zigzag >>> 20) == 0) {
+                bits.write(0b1110, 4);
+                bits.write(zigzag, 20);
+            } else if ((zigzag >>> 32) == 0) {
+                bits.write(0b11110, 5);
+                bits.write(zigzag, 32);
+            } else {
+                bits.write(0b11111, 5);
+                bits.write(zigzag, 64);
+            }
+
+            previous = current;
+            previousDelta = delta;
+        }
+    }
+
+    private static void writeYs(TabulatedFunction function, BitOutput bits) throws IOException {
+        int pointsCount = function.getPointsCount();
+        long previous = Double.doubleToRawLongBits(function.getPointY(0));
+        int previousLeading = -1;
+        int previousTrailing = 0;
+        bits.write(previous, 64);
+
+        int i = 1;
+        while (i < pointsCount) {
+            long current = Double.doubleToRawLongBits(function.getPointY(i));
+            long xor = current ^ previous;
+
+            if (xor == 0) {
+                int end = i + 1;
+                while (end < pointsCount && Double.doubleToRawLongBits(function.getPointY(end)) == previous) {
+                    end++;
+                }
+                bits.write(0b0, 1);
+                bits.writeGamma(end - i);
+                i = end;
+                continue;
+            }
+
+            int leading = Long.numberOfLeadingZeros(xor);
+            int trailing = Long.numberOfTrailingZeros(xor);
+            if (previousLeading >= 0 && leading >= previousLeading && trailing >= previousTrailing) {
+                bits.write(0b10, 2);
+                bits.write(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+            } else {
+                int meaningful = 64 - leading - trailing;
+                bits.write(0b11, 2);
+                bits.write(leading, 6);
+                bits.write(meaningful - 1, 6);
+                bits.write(xor >>> trailing, meaningful);
+                previousLeading = leading;
+                previousTrailing = trailing;
+            }
+
+            previous = current;
+            i++;
+        }
+    }
+
+    // Возвращает массивы {xs, ys}
+    static double[][] read(InputStream in) throws IOException {
+        DataInputStream header = new DataInputStream(in);
+        if (header.readInt() != MAGIC) {
+            throw new IOException("Неверная сигнатура сжатой табулированной функции");
+        }
+        int version = header.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Неподдерживаемая версия формата: " + version);
+        }
+        int pointsCount = header.readInt();
+        if (pointsCount < 0) {
+            throw new IOException("Неверное количество точек: " + pointsCount);
+        }
+        int flags = header.readUnsignedByte();
+
+        double[] xs = new double[pointsCount];
+        double[] ys = new double[pointsCount];
+        BitInput bits = new BitInput(in);
+
+        if ((flags & FLAG_UNIFORM) != 0) {
+            double leftX = header.readDouble();
+            double rightX = header.readDouble();
+            if (pointsCount < 2) {
+                throw new IOException("Равномерная сетка должна содержать не менее 2 точек");
+            }
+            double step = (rightX - leftX) / (pointsCount - 1);
+            for (int i = 0; i < pointsCount; i++) {
+                xs[i] = leftX + i * step;
+            }
+        } else if (pointsCount > 0) {
+            readXs(bits, xs);
+        }
+
+        if (pointsCount > 0) {
+            readYs(bits, ys);
+        }
+
+        return new double[][] {xs, ys};
+    }
+
+    private static void readXs(BitInput bits, double[] xs) throws IOException {
+        long previous = bits.read(64);
+        long previousDelta = 0;
+        xs[0] = Double.longBitsToDouble(previous);
+
+        for (int i = 1; i < xs.length; i++) {
+            long zigzag;
+            if (bits.read(1) == 0) {
+                zigzag = 0;
+            } else if (bits.read(1) == 0) {
+                zigzag = bits.read(7);
+            } else if (bits.read(1) == 0) {
+                zigzag = bits.read(12);
+            } else if (bits.read(1) == 0) {
+                zigzag = bits.read(20);
+            } else if (bits.read(1) == 0) {
+                zigzag = bits.read(32);
+            } else {
+                zigzag = bits.read(64);
+            }
+
+            long deltaOfDelta = (zigzag >>> 1) ^ -(zigzag & 1);
+            long delta = previousDelta + deltaOfDelta;
+            previous += delta;
+            previousDelta = delta;
+            xs[i] = Double.longBitsToDouble(previous);
+        }
+    }
+
+    private static void readYs(BitInput bits, double[] ys) throws IOException {
+        long previous = bits.read(64);
+        int previousLeading = 0;
+        int previousTrailing = 0;
+        ys[0] = Double.longBitsToDouble(previous);
+
+        int i = 1;
+        while (i < ys.length) {
+            if (bits.read(1) == 0) {
+                int run = bits.readGamma();
+                if (run > ys.length - i) {
+                    throw new IOException("Повреждённые данные сжатой табулированной функции");
+                }
+                double value = Double.longBitsToDouble(previous);
+                for (int end = i + run; i < end; i++) {
+                    ys[i] = value;
+                }
+                continue;
+            }
+
+            long xor;
+            if (bits.read(1) == 0) {
+                xor = bits.read(64 - previousLeading - previousTrailing) << previousTrailing;
+            } else {
+                int leading = (int) bits.read(6);
+                int meaningful = (int) bits.read(6) + 1;
+                int trailing = 64 - leading - meaningful;
+                if (trailing < 0) {
+                    throw new IOException("Повреждённые данные сжатой табулированной функции");
+                }
+                xor = bits.read(meaningful) << trailing;
+                previousLeading = leading;
+                previousTrailing = trailing;
+            }
+
+            previous ^= xor;
+            ys[i] = Double.longBitsToDouble(previous);
+            i++;
+        }
+    }
+
+    // Запись битов старшими вперёд; байты копятся в блоке и уходят кадрами
+    private static final class BitOutput {
+        private final OutputStream out;
+        private final byte[] block = new byte[BLOCK_SIZE];
+        private int position;
+        private long accumulator;
+        private int count;
+
+        BitOutput(OutputStream out) {
+            this.out = out;
+        }
+
+        // Записывает младшие bits бит значения, 1 <= bits <= 64
+        void write(long value, int bits) throws IOException {
+            if (bits > 32) {
+                write(value >>> 32, bits - 32);
+                bits = 32;
+            }
+            accumulator = (accumulator << bits) | (value & ((1L << bits) - 1));
+            count += bits;
+            while (count >= 8) {
+                count -= 8;
+                put((byte) (accumulator >>> count));
+            }
+        }
+
+        // Гамма-код Элиаса для value >= 1
+        void writeGamma(int value) throws IOException {
+            int length = 31 - Integer.numberOfLeadingZeros(value);
+            if (length > 0) {
+                write(0, length);
+            }
+            write(value, length + 1);
+        }
+
+        private void put(byte b) throws IOException {
+            block[position++] = b;
+            if (position == BLOCK_SIZE) {
+                writeFrame();
+            }
+        }
+
+        private void writeFrame() throws IOException {
+            if (position == 0) {
+                return;
+            }
+            out.write(position >>> 24);
+            out.write(position >>> 16);
+            out.write(position >>> 8);
+            out.write(position);
+            out.write(block, 0, position);
+            position = 0;
+        }
+
+        // Дописывает неполный байт нулями и отправляет последний кадр
+        void flush() throws IOException {
+            if (count > 0) {
+                put((byte) (accumulator << (8 - count)));
+                count = 0;
+            }
+            writeFrame();
+        }
+    }
+
+    // Чтение битов; из потока читаются ровно те кадры, которые нужны для декодирования
+    private static final class BitInput {
+        private final InputStream in;
+        private final byte[] block = new byte[BLOCK_SIZE];
+        private int position;
+        private int limit;
+        private long accumulator;
+        private int count;
+
+        BitInput(InputStream in) {
+            this.in = in;
+        }
+
+        // Читает bits бит, 1 <= bits <= 64
+        long read(int bits) throws IOException {
+            if (bits > 32) {
+                long high = read(bits - 32);
+                return (high << 32) | read(32);
+            }
+            while (count < bits) {
+                if (position == limit) {
+                    readFrame();
+                }
+                accumulator = (accumulator << 8) | (block[position++] & 0xFF);
+                count += 8;
+            }
+            count -= bits;
+            return (accumulator >>> count) & ((1L << bits) - 1);
+        }
+
+        int readGamma() throws IOException {
+            int length = 0;
+            while (read(1) == 0) {
+                length++;
+                if (length > 30) {
+                    throw new IOException("Повреждённые данные сжатой табулированной функции");
+                }
+            }
+            return length == 0 ? 1 : (int) ((1L << length) | read(length));
+        }
+
+        private void readFrame() throws IOException {
+            int length = 0;
+            for (int i = 0; i < 4; i++) {
+                int b = in.read();
+                if (b < 0) {
+                    throw new EOFException("Неожиданный конец потока");
+                }
+                length = (length << 8) | b;
+            }
+            if (length <= 0 || length > BLOCK_SIZE) {
+                throw new IOException("Неверная длина блока: " + length);
+            }
+
+            int offset = 0;
+            while (offset < length) {
+                int read = in.read(block, offset, length - offset);
+                if (read < 0) {
+                    throw new EOFException("Неожиданный конец потока");
+                }
+                offset += read;
+            }
+            position = 0;
+            limit = length;
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package functions;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Iterator;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+// Потокобезопасная табулированная функция для схемы «много читателей — один писатель».
+// Чтения выполняются оптимистично и не блокируются: результат принимается, если за время
+// чтения не было записи, иначе чтение повторяется под блокировкой. Изменения выполняются
+// под блокировкой записи. Точки хранятся в ArrayTabulatedFunction, чтение которой
+// не изменяет её состояния
+public class ConcurrentTabulatedFunction implements TabulatedFunction, Serializable {
+    private final ArrayTabulatedFunction function;
+    private final StampedLock lock = new StampedLock();
+
+    private static final long serialVersionUID = 1L;
+
+    // Фабрика для ConcurrentTabulatedFunction
+    public static class ConcurrentTabulatedFunctionFactory implements TabulatedFunctionFactory {
+        @Override
+        public TabulatedFunction createTabulatedFunction(double leftX, double rightX, int pointsCount) {
+            return new ConcurrentTabulatedFunction(leftX, rightX, pointsCount);
+        }
+
+        @Override
+        public TabulatedFunction createTabulatedFunction(double leftX, double rightX, double[] values) {
+            return new ConcurrentTabulatedFunction(leftX, rightX, values);
+        }
+
+        @Override
+        public TabulatedFunction createTabulatedFunction(FunctionPoint[] points) {
+            return new ConcurrentTabulatedFunction(points);
+        }
+    }
+
+    public ConcurrentTabulatedFunction(double leftX, double rightX, int pointsCount) {
+        this.function = new ArrayTabulatedFunction(leftX, rightX, pointsCount);
+    }
+
+    public ConcurrentTabulatedFunction(double leftX, double rightX, double[] values) {
+        this.function = new ArrayTabulatedFunction(leftX, rightX, values);
+    }
+
+    public ConcurrentTabulatedFunction(FunctionPoint[] points) {
+        this.function = new ArrayTabulatedFunction(points);
+    }
+
+    // Потокобезопасная копия произвольной табулированной функции
+    public ConcurrentTabulatedFunction(TabulatedFunction source) {
+        FunctionPoint[] points = new FunctionPoint[source.getPointsCount()];
+        int index = 0;
+        for (FunctionPoint point : source) {
+            points[index++] = point;
+        }
+        this.function = new ArrayTabulatedFunction(points);
+    }
+
+    // Оптимистичное чтение: результат принимается, если за время чтения не было записи.
+    // Исключение при таком чтении возможно из-за пересечения с записью или из-за неверного
+    // аргумента, поэтому чтение повторяется под блокировкой, где исключение уже окончательное
+    private <T> T read(Supplier<T> reader) {
+        long stamp = lock.tryOptimisticRead();
+        try {
+            T result = reader.get();
+            if (lock.validate(stamp)) {
+                return result;
+            }
+        } catch (RuntimeException e) {
+            // Чтение пересеклось с записью — повторяем под блокировкой
+        }
+
+        stamp = lock.readLock();
+        try {
+            return reader.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // То же для числовых результатов: без упаковки в Double и Integer
+    private double readDouble(DoubleSupplier reader) {
+        long stamp = lock.tryOptimisticRead();
+        try {
+            double result = reader.getAsDouble();
+            if (lock.validate(stamp)) {
+                return result;
+            }
+        } catch (RuntimeException e) {
+            // Чтение пересеклось с записью — повторяем под блокировкой
+        }
+
+        stamp = lock.readLock();
+        try {
+            return reader.getAsDouble();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private int readInt(IntSupplier reader) {
+        long stamp = lock.tryOptimisticRead();
+        try {
+            int result = reader.getAsInt();
+            if (lock.validate(stamp)) {
+                return result;
+            }
+        } catch (RuntimeException e) {
+            // Чтение пересеклось с записью — повторяем под блокировкой
+        }
+
+        stamp = lock.readLock();
+        try {
+            return reader.getAsInt();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Согласованная копия текущего состояния
+    private ArrayTabulatedFunction snapshot() {
+        return read(function::clone);
+    }
+
+    public double getLeftDomainBorder() {
+        return readDouble(function::getLeftDomainBorder);
+    }
+
+    public double getRightDomainBorder() {
+        return readDouble(function::getRightDomainBorder);
+    }
+
+    // Самый частый вызов читателей: оптимистичное чтение записано прямо здесь,
+    // чтобы не зависеть от встраивания общего помощника
+    public double getFunctionValue(double x) {
+        long stamp = lock.tryOptimisticRead();
+        try {
+            double value = function.getFunctionValue(x);
+            if (lock.validate(stamp)) {
+                return value;
+            }
+        } catch (RuntimeException e) {
+            // Чтение пересеклось с записью — повторяем под блокировкой
+        }
+
+        stamp = lock.readLock();
+        try {
+            return function.getFunctionValue(x);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public void getFunctionValues(double[] arguments, double[] values, int from, int to) {
+        // При совпадении массивов повторное вычисление невозможно — аргументы сохраняются
+        double[] source = arguments == values ? arguments.clone() : arguments;
+        read(() -> {
+            function.getFunctionValues(source, values, from, to);
+            return null;
+        });
+    }
+
+    public int getPointsCount() {
+        return readInt(function::getPointsCount);
+    }
+
+    public FunctionPoint getPoint(int index) {
+        return read(() -> function.getPoint(index));
+    }
+
+    public double getPointX(int index) {
+        return readDouble(() -> function.getPointX(index));
+    }
+
+    public double getPointY(int index) {
+        return readDouble(() -> function.getPointY(index));
+    }
+
+    public void setPoint(int index, FunctionPoint point) throws InappropriateFunctionPointException {
+        long stamp = lock.writeLock();
+        try {
+            function.setPoint(index, point);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void setPointX(int index, double x) throws InappropriateFunctionPointException {
+        long stamp = lock.writeLock();
+        try {
+            function.setPointX(index, x);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void setPointY(int index, double y) {
+        long stamp = lock.writeLock();
+        try {
+            function.setPointY(index, y);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void deletePoint(int index) {
+        long stamp = lock.writeLock();
+        try {
+            function.deletePoint(index);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void addPoint(FunctionPoint point) throws InappropriateFunctionPointException {
+        long stamp = lock.writeLock();
+        try {
+            function.addPoint(point);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void addPoints(FunctionPoint[] points) throws InappropriateFunctionPointException {
+        long stamp = lock.writeLock();
+        try {
+            function.addPoints(points);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Интеграл считается проходом по точкам. Дерево площадей ArrayTabulatedFunction
+    // здесь не строится: оно создаётся при чтении, а чтения из разных потоков
+    // не должны изменять внутреннюю функцию
+    @Override
+    public double integral(double a, double b) {
+        return read(() -> Functions.integrate(function, a, b));
+    }
+
+    // Замораживается одна согласованная копия текущего состояния
+    @Override
+    public FrozenTabulatedFunction freeze() {
+        return new FrozenTabulatedFunction(snapshot());
+    }
+
+    // Итератор проходит по копии, снятой в момент вызова
+    @Override
+    public Iterator<FunctionPoint> iterator() {
+        return snapshot().iterator();
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        long stamp = lock.readLock();
+        try {
+            out.defaultWriteObject();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return snapshot().toString();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof TabulatedFunction)) return false;
+
+        return snapshot().equals(obj);
+    }
+
+    @Override
+    public int hashCode() {
+        return snapshot().hashCode();
+    }
+
+    @Override
+    public ConcurrentTabulatedFunction clone() {
+        return new ConcurrentTabulatedFunction(snapshot());
+    }
+}
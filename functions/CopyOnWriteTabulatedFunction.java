@@ -0,0 +1,287 @@
+package functions;
+
+import java.io.Serializable;
+import java.util.Iterator;
+
+// Табулированная функция с копированием при записи для таблиц, которые в основном читаются.
+// Текущее состояние — неизменяемый после публикации массив точек, доступный через volatile-ссылку,
+// поэтому чтения не требуют синхронизации. Каждое изменение строит новую копию и публикует её;
+// несколько изменений можно объединить в одну публикацию методом update()
+public class CopyOnWriteTabulatedFunction implements TabulatedFunction, Serializable {
+    // Опубликованный объект больше никогда не изменяется
+    private volatile ArrayTabulatedFunction current;
+
+    private static final long serialVersionUID = 1L;
+
+    // Групповое изменение, применяемое к рабочей копии
+    public interface Update {
+        void apply(TabulatedFunction function) throws InappropriateFunctionPointException;
+    }
+
+    // Фабрика для CopyOnWriteTabulatedFunction
+    public static class CopyOnWriteTabulatedFunctionFactory implements TabulatedFunctionFactory {
+        @Override
+        public TabulatedFunction createTabulatedFunction(double leftX, double rightX, int pointsCount) {
+            return new CopyOnWriteTabulatedFunction(leftX, rightX, pointsCount);
+        }
+
+        @Override
+        public TabulatedFunction createTabulatedFunction(double leftX, double rightX, double[] values) {
+            return new CopyOnWriteTabulatedFunction(leftX, rightX, values);
+        }
+
+        @Override
+        public TabulatedFunction createTabulatedFunction(FunctionPoint[] points) {
+            return new CopyOnWriteTabulatedFunction(points);
+        }
+    }
+
+    // Неизменяемый снимок состояния; его можно свободно передавать другим потокам
+    private static class Snapshot implements TabulatedFunction, Serializable {
+        private final ArrayTabulatedFunction function;
+
+        private static final long serialVersionUID = 1L;
+
+        Snapshot(ArrayTabulatedFunction function) {
+            this.function = function;
+        }
+
+        public double getLeftDomainBorder() {
+            return function.getLeftDomainBorder();
+        }
+
+        public double getRightDomainBorder() {
+            return function.getRightDomainBorder();
+        }
+
+        public double getFunctionValue(double x) {
+            return function.getFunctionValue(x);
+        }
+
+        @Override
+        public void getFunctionValues(double[] arguments, double[] values, int from, int to) {
+            function.getFunctionValues(arguments, values, from, to);
+        }
+
+        public int getPointsCount() {
+            return function.getPointsCount();
+        }
+
+        public FunctionPoint getPoint(int index) {
+            return function.getPoint(index);
+        }
+
+        public void setPoint(int index, FunctionPoint point) {
+            throw new UnsupportedOperationException("Снимок табулированной функции нельзя изменять");
+        }
+
+        public double getPointX(int index) {
+            return function.getPointX(index);
+        }
+
+        public void setPointX(int index, double x) {
+            throw new UnsupportedOperationException("Снимок табулированной функции нельзя изменять");
+        }
+
+        public double getPointY(int index) {
+            return function.getPointY(index);
+        }
+
+        public void setPointY(int index, double y) {
+            throw new UnsupportedOperationException("Снимок табулированной функции нельзя изменять");
+        }
+
+        public void deletePoint(int index) {
+            throw new UnsupportedOperationException("Снимок табулированной функции нельзя изменять");
+        }
+
+        public void addPoint(FunctionPoint point) {
+            throw new UnsupportedOperationException("Снимок табулированной функции нельзя изменять");
+        }
+
+        @Override
+        public void addPoints(FunctionPoint[] points) {
+            throw new UnsupportedOperationException("Снимок табулированной функции нельзя изменять");
+        }
+
+        @Override
+        public Iterator<FunctionPoint> iterator() {
+            return function.iterator();
+        }
+
+        @Override
+        public String toString() {
+            return function.toString();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof TabulatedFunction)) return false;
+
+            return function.equals(obj);
+        }
+
+        @Override
+        public int hashCode() {
+            return function.hashCode();
+        }
+
+        // Снимок неизменяем, поэтому копировать его не нужно
+        @Override
+        public Snapshot clone() {
+            return this;
+        }
+    }
+
+    public CopyOnWriteTabulatedFunction(double leftX, double rightX, int pointsCount) {
+        this.current = new ArrayTabulatedFunction(leftX, rightX, pointsCount);
+    }
+
+    public CopyOnWriteTabulatedFunction(double leftX, double rightX, double[] values) {
+        this.current = new ArrayTabulatedFunction(leftX, rightX, values);
+    }
+
+    public CopyOnWriteTabulatedFunction(FunctionPoint[] points) {
+        this.current = new ArrayTabulatedFunction(points);
+    }
+
+    public CopyOnWriteTabulatedFunction(TabulatedFunction source) {
+        FunctionPoint[] points = new FunctionPoint[source.getPointsCount()];
+        int index = 0;
+        for (FunctionPoint point : source) {
+            points[index++] = point;
+        }
+        this.current = new ArrayTabulatedFunction(points);
+    }
+
+    // Неизменяемое представление текущего состояния за O(1)
+    public TabulatedFunction snapshot() {
+        return new Snapshot(current);
+    }
+
+    // Применяет группу изменений к копии и публикует результат одним присваиванием.
+    // Если изменение завершилось исключением, опубликованное состояние не меняется
+    public synchronized void update(Update update) throws InappropriateFunctionPointException {
+        ArrayTabulatedFunction copy = current.clone();
+        update.apply(copy);
+        current = copy;
+    }
+
+    public double getLeftDomainBorder() {
+        return current.getLeftDomainBorder();
+    }
+
+    public double getRightDomainBorder() {
+        return current.getRightDomainBorder();
+    }
+
+    public double getFunctionValue(double x) {
+        return current.getFunctionValue(x);
+    }
+
+    @Override
+    public void getFunctionValues(double[] arguments, double[] values, int from, int to) {
+        current.getFunctionValues(arguments, values, from, to);
+    }
+
+    public int getPointsCount() {
+        return current.getPointsCount();
+    }
+
+    public FunctionPoint getPoint(int index) {
+        return current.getPoint(index);
+    }
+
+    public synchronized void setPoint(int index, FunctionPoint point) throws InappropriateFunctionPointException {
+        ArrayTabulatedFunction copy = current.clone();
+        copy.setPoint(index, point);
+        current = copy;
+    }
+
+    public double getPointX(int index) {
+        return current.getPointX(index);
+    }
+
+    public synchronized void setPointX(int index, double x) throws InappropriateFunctionPointException {
+        ArrayTabulatedFunction copy = current.clone();
+        copy.setPointX(index, x);
+        current = copy;
+    }
+
+    public double getPointY(int index) {
+        return current.getPointY(index);
+    }
+
+    public synchronized void setPointY(int index, double y) {
+        ArrayTabulatedFunction copy = current.clone();
+        copy.setPointY(index, y);
+        current = copy;
+    }
+
+    public synchronized void deletePoint(int index) {
+        ArrayTabulatedFunction copy = current.clone();
+        copy.deletePoint(index);
+        current = copy;
+    }
+
+    public synchronized void addPoint(FunctionPoint point) throws InappropriateFunctionPointException {
+        ArrayTabulatedFunction copy = current.clone();
+        copy.addPoint(point);
+        current = copy;
+    }
+
+    @Override
+    public synchronized void addPoints(FunctionPoint[] points) throws InappropriateFunctionPointException {
+        ArrayTabulatedFunction copy = current.clone();
+        copy.addPoints(points);
+        current = copy;
+    }
+
+    // Интеграл по состоянию на момент вызова. Опубликованный объект не изменяется,
+    // поэтому его ленивое дерево площадей не строится, точки проходятся напрямую
+    @Override
+    public double integral(double a, double b) {
+        return Functions.integrate(current, a, b);
+    }
+
+    // Замораживается состояние на момент вызова
+    @Override
+    public FrozenTabulatedFunction freeze() {
+        return new FrozenTabulatedFunction(current);
+    }
+
+    // Итератор проходит по состоянию на момент вызова
+    @Override
+    public Iterator<FunctionPoint> iterator() {
+        return current.iterator();
+    }
+
+    @Override
+    public String toString() {
+        return current.toString();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof TabulatedFunction)) return false;
+
+        return current.equals(obj);
+    }
+
+    @Override
+    public int hashCode() {
+        return current.hashCode();
+    }
+
+    // Копия разделяет с оригиналом неизменяемое состояние до первой записи
+    @Override
+    public CopyOnWriteTabulatedFunction clone() {
+        try {
+            return (CopyOnWriteTabulatedFunction) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError("Клонирование не поддерживается", e);
+        }
+    }
+}
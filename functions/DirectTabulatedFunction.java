@@ -0,0 +1,552 @@
+package functions;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// Табулированная функция, координаты которой хранятся вне кучи в прямых буферах.
+// Для больших таблиц это снимает нагрузку со сборщика мусора: в куче остаются лишь
+// несколько объектов независимо от количества точек. Память принадлежит объекту и освобождается
+// сразу в close() (и при росте ёмкости — память старых буферов); после close() функцией
+// пользоваться нельзя. Закрытие не должно пересекаться с обращениями из других потоков.
+// Без модуля jdk.unsupported память, как обычно, возвращает сборщик мусора
+public class DirectTabulatedFunction implements TabulatedFunction, Externalizable, AutoCloseable {
+    // Владельцы памяти вне кучи; xs и ys — их представления в виде DoubleBuffer
+    private ByteBuffer xsMemory;
+    private ByteBuffer ysMemory;
+    private DoubleBuffer xs;
+    private DoubleBuffer ys;
+    private int pointsCount;
+    // Признак равномерной сетки по X и её шаг
+    private boolean uniform;
+    private double step;
+
+    // Больше точек не помещается в один прямой буфер: его размер в байтах задаётся int
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE / Double.BYTES;
+
+    // Немедленное освобождение прямого буфера (sun.misc.Unsafe.invokeCleaner) или null
+    private static final MethodHandle INVOKE_CLEANER = findCleaner();
+
+    private static final long serialVersionUID = 1L;
+
+    // Фабрика для DirectTabulatedFunction
+    public static class DirectTabulatedFunctionFactory implements TabulatedFunctionFactory {
+        @Override
+        public TabulatedFunction createTabulatedFunction(double leftX, double rightX, int pointsCount) {
+            return new DirectTabulatedFunction(leftX, rightX, pointsCount);
+        }
+
+        @Override
+        public TabulatedFunction createTabulatedFunction(double leftX, double rightX, double[] values) {
+            return new DirectTabulatedFunction(leftX, rightX, values);
+        }
+
+        @Override
+        public TabulatedFunction createTabulatedFunction(FunctionPoint[] points) {
+            return new DirectTabulatedFunction(points);
+        }
+    }
+
+    // Нужен для Externalizable
+    public DirectTabulatedFunction() {
+        this.pointsCount = 0;
+        allocateColumns(10);
+    }
+
+    public DirectTabulatedFunction(double leftX, double rightX, int pointsCount) {
+        if (leftX >= rightX) {
+            throw new IllegalArgumentException("Левая граница должна быть меньше правой");
+        }
+
+        if (pointsCount < 2) {
+            throw new IllegalArgumentException("Количество точек должно быть не менее 2");
+        }
+
+        this.pointsCount = pointsCount;
+        allocateColumns(pointsCount);
+
+        this.step = (rightX - leftX) / (pointsCount - 1);
+        this.uniform = true;
+
+        for (int i = 0; i < pointsCount; i++) {
+            xs.put(i, leftX + i * step);
+        }
+    }
+
+    public DirectTabulatedFunction(double leftX, double rightX, double[] values) {
+        if (leftX >= rightX) {
+            throw new IllegalArgumentException("Левая граница должна быть меньше правой");
+        }
+
+        if (values.length < 2) {
+            throw new IllegalArgumentException("Количество точек должно быть не менее 2");
+        }
+
+        this.pointsCount = values.length;
+        allocateColumns(pointsCount);
+
+        this.step = (rightX - leftX) / (pointsCount - 1);
+        this.uniform = true;
+
+        for (int i = 0; i < pointsCount; i++) {
+            xs.put(i, leftX + i * step);
+        }
+        ys.put(0, values);
+    }
+
+    public DirectTabulatedFunction(FunctionPoint[] points) {
+        if (points.length < 2) {
+            throw new IllegalArgumentException("Количество точек должно быть не менее 2");
+        }
+
+        for (int i = 1; i < points.length; i++) {
+            if (points[i].getX() <= points[i - 1].getX()) {
+                throw new IllegalArgumentException("Точки должны быть строго упорядочены по возрастанию X");
+            }
+        }
+
+        this.pointsCount = points.length;
+        allocateColumns(pointsCount);
+
+        for (int i = 0; i < pointsCount; i++) {
+            xs.put(i, points[i].getX());
+            ys.put(i, points[i].getY());
+        }
+
+        detectUniformGrid();
+    }
+
+    private static ByteBuffer allocate(long capacity) {
+        if (capacity < 0 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Недопустимое количество точек для прямого буфера: " + capacity
+                    + " (не более " + MAX_CAPACITY + ")");
+        }
+        return ByteBuffer.allocateDirect((int) capacity * Double.BYTES).order(ByteOrder.nativeOrder());
+    }
+
+    // Выделяет новые буферы ёмкостью capacity точек; прежние не освобождаются
+    private void allocateColumns(long capacity) {
+        xsMemory = allocate(capacity);
+        ysMemory = allocate(capacity);
+        xs = xsMemory.asDoubleBuffer();
+        ys = ysMemory.asDoubleBuffer();
+    }
+
+    private static MethodHandle findCleaner() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(field.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    // Возвращает память буфера сразу; обращаться к нему и его представлениям после этого нельзя
+    private static void release(ByteBuffer memory) {
+        if (INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invokeExact(memory);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Не удалось освободить прямой буфер", e);
+        }
+    }
+
+    // Освобождает память вне кучи; последующие обращения к функции завершаются IllegalStateException.
+    // Повторный вызов ничего не делает
+    @Override
+    public void close() {
+        if (xs == null) {
+            return;
+        }
+        ByteBuffer oldXs = xsMemory;
+        ByteBuffer oldYs = ysMemory;
+        xsMemory = null;
+        ysMemory = null;
+        xs = null;
+        ys = null;
+        pointsCount = 0;
+        release(oldXs);
+        release(oldYs);
+    }
+
+    private void checkOpen() {
+        if (xs == null) {
+            throw new IllegalStateException("Табулированная функция закрыта");
+        }
+    }
+
+    private void checkIndex(int index) {
+        checkOpen();
+        if (index < 0 || index >= pointsCount) {
+            throw new FunctionPointIndexOutOfBoundsException("Индекс " + index + " вне границ [0, " + (pointsCount - 1) + "]");
+        }
+    }
+
+    // Проверяет, образуют ли X равномерную сетку (с тем же допуском, что и ArrayTabulatedFunction)
+    private void detectUniformGrid() {
+        uniform = false;
+        if (pointsCount < 2) {
+            return;
+        }
+
+        double x0 = xs.get(0);
+        double candidateStep = (xs.get(pointsCount - 1) - x0) / (pointsCount - 1);
+        for (int i = 1; i < pointsCount - 1; i++) {
+            if (Math.abs(xs.get(i) - (x0 + i * candidateStep)) > candidateStep * 1e-6) {
+                return;
+            }
+        }
+
+        step = candidateStep;
+        uniform = true;
+    }
+
+    // Ёмкость растёт геометрически; память старых буферов освобождается сразу после копирования
+    private void ensureCapacity(long capacity) {
+        if (capacity > xs.capacity()) {
+            long newCapacity = Math.max(capacity, Math.min(xs.capacity() + (xs.capacity() >> 1) + 1L, MAX_CAPACITY));
+            ByteBuffer oldXsMemory = xsMemory;
+            ByteBuffer oldYsMemory = ysMemory;
+            DoubleBuffer oldXs = xs;
+            DoubleBuffer oldYs = ys;
+            allocateColumns(newCapacity);
+            xs.put(0, oldXs, 0, pointsCount);
+            ys.put(0, oldYs, 0, pointsCount);
+            release(oldXsMemory);
+            release(oldYsMemory);
+        }
+    }
+
+    public double getLeftDomainBorder() {
+        checkOpen();
+        return xs.get(0);
+    }
+
+    public double getRightDomainBorder() {
+        checkOpen();
+        return xs.get(pointsCount - 1);
+    }
+
+    public double getFunctionValue(double x) {
+        if (x < getLeftDomainBorder() || x > getRightDomainBorder()) {
+            return Double.NaN;
+        }
+
+        int segment = TabulatedSearch.locateSegment(xs, pointsCount, uniform ? step : 0, x, -1);
+        return TabulatedSearch.interpolate(xs, ys, TabulatedSearch.adjustSegmentIndex(xs, segment, x), x);
+    }
+
+    @Override
+    public void getFunctionValues(double[] arguments, double[] values, int from, int to) {
+        double left = getLeftDomainBorder();
+        double right = getRightDomainBorder();
+        int segment = -1;
+
+        for (int i = from; i < to; i++) {
+            double x = arguments[i];
+            if (x < left || x > right) {
+                values[i] = Double.NaN;
+                continue;
+            }
+
+            segment = TabulatedSearch.locateSegment(xs, pointsCount, uniform ? step : 0, x, segment);
+            values[i] = TabulatedSearch.interpolate(xs, ys, TabulatedSearch.adjustSegmentIndex(xs, segment, x), x);
+        }
+    }
+
+    public int getPointsCount() {
+        checkOpen();
+        return pointsCount;
+    }
+
+    public FunctionPoint getPoint(int index) {
+        checkIndex(index);
+        return new FunctionPoint(xs.get(index), ys.get(index));
+    }
+
+    public void setPoint(int index, FunctionPoint point) throws InappropriateFunctionPointException {
+        checkIndex(index);
+
+        if (index > 0 && TabulatedSearch.lessOrEqual(point.getX(), xs.get(index - 1))) {
+            throw new InappropriateFunctionPointException("X координата должна быть больше предыдущей точки");
+        }
+
+        if (index < pointsCount - 1 && TabulatedSearch.lessOrEqual(xs.get(index + 1), point.getX())) {
+            throw new InappropriateFunctionPointException("X координата должна быть меньше следующей точки");
+        }
+
+        if (xs.get(index) != point.getX()) {
+            uniform = false;
+        }
+
+        xs.put(index, point.getX());
+        ys.put(index, point.getY());
+    }
+
+    public double getPointX(int index) {
+        checkIndex(index);
+        return xs.get(index);
+    }
+
+    public void setPointX(int index, double x) throws InappropriateFunctionPointException {
+        checkIndex(index);
+
+        if (index > 0 && TabulatedSearch.lessOrEqual(x, xs.get(index - 1))) {
+            throw new InappropriateFunctionPointException("X координата должна быть больше предыдущей точки");
+        }
+
+        if (index < pointsCount - 1 && TabulatedSearch.lessOrEqual(xs.get(index + 1), x)) {
+            throw new InappropriateFunctionPointException("X координата должна быть меньше следующей точки");
+        }
+
+        if (xs.get(index) != x) {
+            uniform = false;
+        }
+
+        xs.put(index, x);
+    }
+
+    public double getPointY(int index) {
+        checkIndex(index);
+        return ys.get(index);
+    }
+
+    public void setPointY(int index, double y) {
+        checkIndex(index);
+        ys.put(index, y);
+    }
+
+    public void deletePoint(int index) {
+        checkOpen();
+        if (pointsCount < 3) {
+            throw new IllegalStateException("Нельзя удалить точку: минимальное количество точек - 3");
+        }
+
+        checkIndex(index);
+
+        // Удаление крайней точки сохраняет равномерность сетки
+        if (index != 0 && index != pointsCount - 1) {
+            uniform = false;
+        }
+
+        xs.put(index, xs, index + 1, pointsCount - index - 1);
+        ys.put(index, ys, index + 1, pointsCount - index - 1);
+
+        pointsCount--;
+    }
+
+    public void addPoint(FunctionPoint point) throws InappropriateFunctionPointException {
+        checkOpen();
+        double newX = point.getX();
+        double newY = point.getY();
+
+        int insertIndex = TabulatedSearch.upperBound(xs, pointsCount, newX);
+        if ((insertIndex > 0 && TabulatedSearch.equals(xs.get(insertIndex - 1), newX))
+                || (insertIndex < pointsCount && TabulatedSearch.equals(xs.get(insertIndex), newX))) {
+            throw new InappropriateFunctionPointException("Точка с X=" + newX + " уже существует");
+        }
+
+        ensureCapacity(pointsCount + 1);
+
+        xs.put(insertIndex + 1, xs, insertIndex, pointsCount - insertIndex);
+        ys.put(insertIndex + 1, ys, insertIndex, pointsCount - insertIndex);
+
+        xs.put(insertIndex, newX);
+        ys.put(insertIndex, newY);
+        pointsCount++;
+        uniform = false;
+    }
+
+    @Override
+    public void addPoints(FunctionPoint[] points) throws InappropriateFunctionPointException {
+        checkOpen();
+        FunctionPoint[] batch = TabulatedFunctions.sortPointsByX(points);
+        int count = batch.length;
+        if (count == 0) {
+            return;
+        }
+
+        // Сначала проверяем весь набор, чтобы при ошибке функция осталась неизменной
+        int index = 0;
+        for (FunctionPoint point : batch) {
+            double x = point.getX();
+            while (index < pointsCount && xs.get(index) < x) {
+                index++;
+            }
+            if ((index > 0 && TabulatedSearch.equals(xs.get(index - 1), x))
+                    || (index < pointsCount && TabulatedSearch.equals(xs.get(index), x))) {
+                throw new InappropriateFunctionPointException("Точка с X=" + x + " уже существует");
+            }
+        }
+
+        ensureCapacity((long) pointsCount + count);
+
+        // Слияние с конца на месте: каждая точка сдвигается не более одного раза
+        int target = pointsCount + count - 1;
+        int existing = pointsCount - 1;
+        int added = count - 1;
+        while (added >= 0) {
+            if (existing >= 0 && xs.get(existing) > batch[added].getX()) {
+                xs.put(target, xs.get(existing));
+                ys.put(target, ys.get(existing));
+                existing--;
+            } else {
+                xs.put(target, batch[added].getX());
+                ys.put(target, batch[added].getY());
+                added--;
+            }
+            target--;
+        }
+
+        pointsCount += count;
+        detectUniformGrid();
+    }
+
+    // Итератор
+    @Override
+    public Iterator<FunctionPoint> iterator() {
+        checkOpen();
+        return new Iterator<FunctionPoint>() {
+            private int currentIndex = 0;
+
+            @Override
+            public boolean hasNext() {
+                return currentIndex < pointsCount;
+            }
+
+            @Override
+            public FunctionPoint next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("Нет следующего элемента");
+                }
+                FunctionPoint point = getPoint(currentIndex);
+                currentIndex++;
+                return point;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("Удаление не поддерживается");
+            }
+        };
+    }
+
+    // Формат совпадает с ArrayTabulatedFunction
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        checkOpen();
+        out.writeInt(pointsCount);
+        for (int i = 0; i < pointsCount; i++) {
+            out.writeDouble(xs.get(i));
+            out.writeDouble(ys.get(i));
+        }
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        int count = in.readInt();
+        // Буферы, выделенные конструктором без параметров, больше не нужны
+        close();
+        allocateColumns(Math.max(count, 10));
+        pointsCount = count;
+        for (int i = 0; i < pointsCount; i++) {
+            xs.put(i, in.readDouble());
+            ys.put(i, in.readDouble());
+        }
+
+        detectUniformGrid();
+    }
+
+    @Override
+    public String toString() {
+        checkOpen();
+        StringBuilder sb = new StringBuilder();
+        sb.append("{");
+
+        for (int i = 0; i < pointsCount; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append("(").append(xs.get(i)).append("; ").append(ys.get(i)).append(")");
+        }
+
+        sb.append("}");
+        return sb.toString();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null) return false;
+
+        if (obj instanceof TabulatedFunction) {
+            checkOpen();
+            TabulatedFunction other = (TabulatedFunction) obj;
+
+            if (this.getPointsCount() != other.getPointsCount()) {
+                return false;
+            }
+
+            int index = 0;
+            for (FunctionPoint point : other) {
+                if (!TabulatedSearch.equals(xs.get(index), point.getX()) || !TabulatedSearch.equals(ys.get(index), point.getY())) {
+                    return false;
+                }
+                index++;
+            }
+
+            return true;
+        }
+
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        checkOpen();
+        int hash = pointsCount;
+
+        for (int i = 0; i < pointsCount; i++) {
+            long xBits = Double.doubleToLongBits(xs.get(i));
+            long yBits = Double.doubleToLongBits(ys.get(i));
+            hash ^= (int)(xBits ^ (xBits >>> 32)) ^ (int)(yBits ^ (yBits >>> 32));
+        }
+
+        return hash;
+    }
+
+    // Копия получает собственные буферы
+    @Override
+    public DirectTabulatedFunction clone() {
+        checkOpen();
+        try {
+            DirectTabulatedFunction cloned = (DirectTabulatedFunction) super.clone();
+
+            cloned.allocateColumns(Math.max(pointsCount, 10));
+            cloned.xs.put(0, xs, 0, pointsCount);
+            cloned.ys.put(0, ys, 0, pointsCount);
+
+            return cloned;
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError("Клонирование не поддерживается", e);
+        }
+    }
+}
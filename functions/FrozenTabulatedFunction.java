@@ -0,0 +1,283 @@
+package functions;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// Неизменяемая табулированная функция с заранее вычисленными наклонами отрезков.
+// Значение на отрезке i равно ys[i] + slopes[i] * (x - xs[i]) и вычисляется одной
+// операцией fma, без деления; на равномерной сетке номер отрезка находится одним умножением.
+// Узлы не «притягивают» x с точностью EPSILON, как в ArrayTabulatedFunction: рядом с узлом
+// результат — та же линейная интерполяция, что и внутри отрезка.
+// Объект не изменяется после создания, поэтому его можно использовать из нескольких потоков
+// без синхронизации
+public final class FrozenTabulatedFunction implements TabulatedFunction, Serializable {
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] slopes;
+    // Шаг равномерной сетки по X и обратная к нему величина или 0, если сетка неравномерная
+    private final double step;
+    private final double inverseStep;
+
+    private static final double EPSILON = 1e-10;
+
+    private static final long serialVersionUID = 1L;
+
+    public FrozenTabulatedFunction(TabulatedFunction source) {
+        // Количество точек берётся из того же обхода, что и сами точки: у потокобезопасных
+        // функций getPointsCount() и итератор могут видеть разные состояния
+        double[] xs = new double[Math.max(source.getPointsCount(), 2)];
+        double[] ys = new double[xs.length];
+        int pointsCount = 0;
+        for (FunctionPoint point : source) {
+            if (pointsCount == xs.length) {
+                xs = Arrays.copyOf(xs, pointsCount * 2);
+                ys = Arrays.copyOf(ys, pointsCount * 2);
+            }
+            xs[pointsCount] = point.getX();
+            ys[pointsCount] = point.getY();
+            pointsCount++;
+        }
+        if (pointsCount < 2) {
+            throw new IllegalArgumentException("Количество точек должно быть не менее 2");
+        }
+
+        this.xs = xs.length == pointsCount ? xs : Arrays.copyOf(xs, pointsCount);
+        this.ys = ys.length == pointsCount ? ys : Arrays.copyOf(ys, pointsCount);
+
+        slopes = new double[pointsCount - 1];
+        for (int i = 0; i < pointsCount - 1; i++) {
+            slopes[i] = (this.ys[i + 1] - this.ys[i]) / (this.xs[i + 1] - this.xs[i]);
+        }
+
+        step = detectUniformStep(this.xs);
+        inverseStep = step > 0 ? 1 / step : 0;
+    }
+
+    // Шаг сетки, если X образуют равномерную сетку с небольшим допуском, иначе 0
+    private static double detectUniformStep(double[] xs) {
+        int pointsCount = xs.length;
+        double candidateStep = (xs[pointsCount - 1] - xs[0]) / (pointsCount - 1);
+        for (int i = 1; i < pointsCount - 1; i++) {
+            if (Math.abs(xs[i] - (xs[0] + i * candidateStep)) > candidateStep * 1e-6) {
+                return 0;
+            }
+        }
+        return candidateStep;
+    }
+
+    private static boolean equals(double a, double b) {
+        return Math.abs(a - b) < EPSILON;
+    }
+
+    // Номер отрезка, содержащего x из [xs[0], xs[last]]. hint — предполагаемый ответ или -1.
+    // На равномерной сетке — одно умножение и поправка на погрешность округления, иначе двоичный поиск
+    private int segmentOf(double x, int hint) {
+        int last = xs.length - 2;
+        if (hint >= 0 && xs[hint] <= x && (hint == last || x < xs[hint + 1])) {
+            return hint;
+        }
+
+        if (step > 0) {
+            int index = Math.min(Math.max((int) ((x - xs[0]) * inverseStep), 0), last);
+            while (index < last && xs[index + 1] <= x) {
+                index++;
+            }
+            while (index > 0 && xs[index] > x) {
+                index--;
+            }
+            return index;
+        }
+
+        // Последняя точка с X <= x; без ветвлений по результату сравнения,
+        // которые на случайных запросах плохо предсказываются
+        int low = 0;
+        int length = xs.length;
+        while (length > 1) {
+            int half = length >>> 1;
+            low = xs[low + half] <= x ? low + half : low;
+            length -= half;
+        }
+        return Math.min(low, last);
+    }
+
+    public double getLeftDomainBorder() {
+        return xs[0];
+    }
+
+    public double getRightDomainBorder() {
+        return xs[xs.length - 1];
+    }
+
+    public double getFunctionValue(double x) {
+        if (x < xs[0] || x > xs[xs.length - 1]) {
+            return Double.NaN;
+        }
+
+        int i = segmentOf(x, -1);
+        return Math.fma(slopes[i], x - xs[i], ys[i]);
+    }
+
+    @Override
+    public void getFunctionValues(double[] arguments, double[] values, int from, int to) {
+        double left = xs[0];
+        double right = xs[xs.length - 1];
+        int segment = -1;
+
+        for (int i = from; i < to; i++) {
+            double x = arguments[i];
+            if (x < left || x > right) {
+                values[i] = Double.NaN;
+                continue;
+            }
+
+            segment = segmentOf(x, segment);
+            values[i] = Math.fma(slopes[segment], x - xs[segment], ys[segment]);
+        }
+    }
+
+    public int getPointsCount() {
+        return xs.length;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= xs.length) {
+            throw new FunctionPointIndexOutOfBoundsException("Индекс " + index + " вне границ [0, " + (xs.length - 1) + "]");
+        }
+    }
+
+    public FunctionPoint getPoint(int index) {
+        checkIndex(index);
+        return new FunctionPoint(xs[index], ys[index]);
+    }
+
+    public double getPointX(int index) {
+        checkIndex(index);
+        return xs[index];
+    }
+
+    public double getPointY(int index) {
+        checkIndex(index);
+        return ys[index];
+    }
+
+    public void setPoint(int index, FunctionPoint point) {
+        throw new UnsupportedOperationException("Замороженную табулированную функцию нельзя изменять");
+    }
+
+    public void setPointX(int index, double x) {
+        throw new UnsupportedOperationException("Замороженную табулированную функцию нельзя изменять");
+    }
+
+    public void setPointY(int index, double y) {
+        throw new UnsupportedOperationException("Замороженную табулированную функцию нельзя изменять");
+    }
+
+    public void deletePoint(int index) {
+        throw new UnsupportedOperationException("Замороженную табулированную функцию нельзя изменять");
+    }
+
+    public void addPoint(FunctionPoint point) {
+        throw new UnsupportedOperationException("Замороженную табулированную функцию нельзя изменять");
+    }
+
+    @Override
+    public void addPoints(FunctionPoint[] points) {
+        throw new UnsupportedOperationException("Замороженную табулированную функцию нельзя изменять");
+    }
+
+    // Функция уже неизменяема
+    @Override
+    public FrozenTabulatedFunction freeze() {
+        return this;
+    }
+
+    @Override
+    public Iterator<FunctionPoint> iterator() {
+        return new Iterator<FunctionPoint>() {
+            private int currentIndex = 0;
+
+            @Override
+            public boolean hasNext() {
+                return currentIndex < xs.length;
+            }
+
+            @Override
+            public FunctionPoint next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("Нет следующего элемента");
+                }
+                FunctionPoint point = new FunctionPoint(xs[currentIndex], ys[currentIndex]);
+                currentIndex++;
+                return point;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("Удаление не поддерживается");
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{");
+
+        for (int i = 0; i < xs.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append("(").append(xs[i]).append("; ").append(ys[i]).append(")");
+        }
+
+        sb.append("}");
+        return sb.toString();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null) return false;
+
+        if (obj instanceof TabulatedFunction) {
+            TabulatedFunction other = (TabulatedFunction) obj;
+
+            if (xs.length != other.getPointsCount()) {
+                return false;
+            }
+
+            int index = 0;
+            for (FunctionPoint point : other) {
+                if (!equals(xs[index], point.getX()) || !equals(ys[index], point.getY())) {
+                    return false;
+                }
+                index++;
+            }
+
+            return true;
+        }
+
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = xs.length;
+
+        for (int i = 0; i < xs.length; i++) {
+            long xBits = Double.doubleToLongBits(xs[i]);
+            long yBits = Double.doubleToLongBits(ys[i]);
+            hash ^= (int)(xBits ^ (xBits >>> 32)) ^ (int)(yBits ^ (yBits >>> 32));
+        }
+
+        return hash;
+    }
+
+    // Неизменяемый объект не нужно копировать
+    @Override
+    public FrozenTabulatedFunction clone() {
+        return this;
+    }
+}
@@ -4,4 +4,12 @@ public interface Function {
     double getLeftDomainBorder();
     double getRightDomainBorder();
     double getFunctionValue(double x);
-}
\ No newline at end of file
+
+    // Пакетное вычисление: values[i] = f(arguments[i]) для i из [from, to).
+    // Массивы arguments и values могут совпадать
+    default void getFunctionValues(double[] arguments, double[] values, int from, int to) {
+        for (int i = from; i < to; i++) {
+            values[i] = getFunctionValue(arguments[i]);
+        }
+    }
+}
@@ -1,8 +1,12 @@
 package functions;
 
 import functions.meta.*;
+import java.util.concurrent.RecursiveTask;
 
 public final class Functions {
+    // Число отрезков в одном блоке integrateParallel
+    static final int INTEGRATE_LEAF_SEGMENTS = 4096;
+    
     private Functions() {
         throw new AssertionError("Нельзя создавать объекты класса Functions");
     }
@@ -30,24 +34,30 @@ public final class Functions {
     public static Function composition(Function f1, Function f2) {
         return new Composition(f1, f2);
     }
+    
+    // Упрощает дерево мета-функций: объединяет параметры соседних сдвигов, масштабов и степеней,
+    // убирает тождественные операции, Sum(f, f) и Mult(f, f) вычисляют f один раз.
+    // Значения и границы могут измениться на погрешность округления, поэтому все правила
+    // применяются только по явному вызову; табулирование и интегрирование используют
+    // лишь точные из них (FunctionOptimizer.simplify)
+    public static Function optimize(Function function) {
+        return FunctionOptimizer.optimize(function);
+    }
+    
+    // Компилирует дерево мета-функций в один класс со встроенными вычислениями;
+    // если это невозможно, возвращает саму функцию
+    public static Function compile(Function function) {
+        return FunctionCompiler.compile(function);
+    }
 
     public static double integrate(Function function, double a, double b, double step) 
             throws IllegalArgumentException {
-        
-        if (a < function.getLeftDomainBorder() || b > function.getRightDomainBorder()) {
-            throw new IllegalArgumentException(
-                String.format("Интервал интегрирования [%.2f, %.2f] выходит за область определения [%.2f, %.2f]",
-                    a, b, function.getLeftDomainBorder(), function.getRightDomainBorder())
-            );
-        }
-        
-        if (a >= b) {
-            throw new IllegalArgumentException("Левая граница должна быть меньше правой");
-        }
-        
-        if (step <= 0) {
-            throw new IllegalArgumentException("Шаг должен быть положительным");
+        checkIntegrateArguments(function, a, b, step);
+        // Табулированная функция кусочно-линейна, её интеграл вычисляется точно по точкам
+        if (function instanceof TabulatedFunction) {
+            return ((TabulatedFunction) function).integral(a, b);
         }
+        function = FunctionOptimizer.simplify(function);
         
         double integral = 0.0;
         double currentX = a;
@@ -65,4 +75,154 @@ public final class Functions {
         
         return integral;
     }
+    
+    // Точный интеграл табулированной функции: сумма трапеций по её точкам между a и b,
+    // крайние отрезки берутся частично. Точки обходятся по индексу один раз
+    public static double integrate(TabulatedFunction function, double a, double b) {
+        checkIntegrationInterval(function, a, b);
+        
+        // Отрезок [x_i, x_i+1], содержащий a, ищется двоичным поиском
+        int low = 0;
+        int high = function.getPointsCount() - 2;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (function.getPointX(middle) <= a) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        
+        int index = low;
+        double leftX = function.getPointX(index);
+        double leftY = function.getPointY(index);
+        double rightX = function.getPointX(index + 1);
+        double rightY = function.getPointY(index + 1);
+        
+        double currentX = a;
+        double currentY = leftY + (rightY - leftY) * (a - leftX) / (rightX - leftX);
+        double integral = 0.0;
+        while (rightX < b) {
+            integral += (currentY + rightY) * (rightX - currentX) / 2.0;
+            currentX = rightX;
+            currentY = rightY;
+            
+            index++;
+            leftX = rightX;
+            leftY = rightY;
+            rightX = function.getPointX(index + 1);
+            rightY = function.getPointY(index + 1);
+        }
+        
+        double endY = leftY + (rightY - leftY) * (b - leftX) / (rightX - leftX);
+        integral += (currentY + endY) * (b - currentX) / 2.0;
+        return integral;
+    }
+    
+    // Параллельный метод трапеций на общем пуле fork/join.
+    // Узлы x_i = a + i * step (последний — ровно b) делятся на блоки по INTEGRATE_LEAF_SEGMENTS
+    // отрезков; в блоке каждый узел вычисляется один раз пакетно, площади складываются по Кэхэну,
+    // а суммы блоков — попарно по фиксированному дереву. Разбиение зависит только от числа отрезков,
+    // поэтому результат воспроизводим при любом числе потоков.
+    // Функция должна допускать вычисление из нескольких потоков
+    public static double integrateParallel(Function function, double a, double b, double step) {
+        checkIntegrateArguments(function, a, b, step);
+        
+        long segments = (long) Math.ceil((b - a) / step);
+        // Из-за округления последний внутренний узел может оказаться не левее b
+        while (segments > 1 && a + (segments - 1) * step >= b) {
+            segments--;
+        }
+        long leaves = (segments + INTEGRATE_LEAF_SEGMENTS - 1) / INTEGRATE_LEAF_SEGMENTS;
+        return new IntegrateTask(FunctionOptimizer.simplify(function), a, b, step, segments, 0, leaves).invoke();
+    }
+    
+    // Сумма площадей трапеций блоков [fromLeaf, toLeaf)
+    private static final class IntegrateTask extends RecursiveTask<Double> {
+        private static final long serialVersionUID = 1L;
+        
+        private final Function function;
+        private final double a;
+        private final double b;
+        private final double step;
+        private final long segments;
+        private final long fromLeaf;
+        private final long toLeaf;
+        
+        IntegrateTask(Function function, double a, double b, double step, long segments, long fromLeaf, long toLeaf) {
+            this.function = function;
+            this.a = a;
+            this.b = b;
+            this.step = step;
+            this.segments = segments;
+            this.fromLeaf = fromLeaf;
+            this.toLeaf = toLeaf;
+        }
+        
+        @Override
+        protected Double compute() {
+            if (toLeaf - fromLeaf == 1) {
+                return integrateLeaf();
+            }
+            
+            long middle = (fromLeaf + toLeaf) >>> 1;
+            IntegrateTask left = new IntegrateTask(function, a, b, step, segments, fromLeaf, middle);
+            IntegrateTask right = new IntegrateTask(function, a, b, step, segments, middle, toLeaf);
+            right.fork();
+            double leftSum = left.compute();
+            return leftSum + right.join();
+        }
+        
+        private double integrateLeaf() {
+            long first = fromLeaf * INTEGRATE_LEAF_SEGMENTS;
+            int count = (int) Math.min(INTEGRATE_LEAF_SEGMENTS, segments - first);
+            
+            // Узлы first..first+count; значения вычисляются на месте аргументов
+            double[] xs = new double[count + 1];
+            for (int i = 0; i <= count; i++) {
+                long node = first + i;
+                xs[i] = node == segments ? b : a + node * step;
+            }
+            double[] values = new double[count + 1];
+            function.getFunctionValues(xs, values, 0, count + 1);
+            
+            double sum = 0.0;
+            double compensation = 0.0;
+            for (int i = 0; i < count; i++) {
+                double area = (values[i] + values[i + 1]) * (xs[i + 1] - xs[i]) / 2.0 - compensation;
+                double next = sum + area;
+                compensation = (next - sum) - area;
+                sum = next;
+            }
+            return sum;
+        }
+    }
+    
+    // Интегрирование с заданной точностью: узлы выбирает метод, результат содержит оценку интеграла,
+    // границу её погрешности и число вычислений функции
+    public static Quadrature.Result integrate(Function function, double a, double b,
+            Quadrature.Method method, double absoluteTolerance, double relativeTolerance) {
+        return Quadrature.integrate(function, a, b, method, absoluteTolerance, relativeTolerance);
+    }
+    
+    private static void checkIntegrateArguments(Function function, double a, double b, double step) {
+        checkIntegrationInterval(function, a, b);
+        
+        if (step <= 0) {
+            throw new IllegalArgumentException("Шаг должен быть положительным");
+        }
+    }
+    
+    static void checkIntegrationInterval(Function function, double a, double b) {
+        if (a < function.getLeftDomainBorder() || b > function.getRightDomainBorder()) {
+            throw new IllegalArgumentException(
+                String.format("Интервал интегрирования [%.2f, %.2f] выходит за область определения [%.2f, %.2f]",
+                    a, b, function.getLeftDomainBorder(), function.getRightDomainBorder())
+            );
+        }
+        
+        if (a >= b) {
+            throw new IllegalArgumentException("Левая граница должна быть меньше правой");
+        }
+    }
 }
\ No newline at end of file
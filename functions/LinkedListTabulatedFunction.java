@@ -1,16 +1,23 @@
 package functions;
 
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.io.Serializable;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
 
-public class LinkedListTabulatedFunction implements TabulatedFunction, Serializable {
-    private static class FunctionNode implements Serializable {
+public class LinkedListTabulatedFunction implements TabulatedFunction, Serializable, Externalizable {
+    private static class FunctionNode {
         FunctionPoint point;
         FunctionNode prev;
         FunctionNode next;
-        
-        private static final long serialVersionUID = 1L;
+        // Верхние уровни индекса (skip list): skipNext[l - 1] — следующий узел уровня l или null,
+        // skipWidth[l - 1] — сколько узлов основного списка до него. У узлов высоты 1 массивов нет
+        FunctionNode[] skipNext;
+        int[] skipWidth;
         
         FunctionNode(FunctionPoint point) {
             this.point = point;
@@ -21,8 +28,14 @@ public class LinkedListTabulatedFunction implements TabulatedFunction, Serializa
     private FunctionNode lastAccessedNode;
     private int lastAccessedIndex;
     private int pointsCount;
+    // Количество используемых уровней индекса, включая основной список
+    private int levels;
     
     private static final double EPSILON = 1e-10;
+    // Максимальная высота узла; уровень l содержит в среднем каждый 4^l-й узел
+    private static final int MAX_LEVEL = 16;
+    // До какого расстояния от lastAccessedNode выгоднее идти по списку, чем спускаться по индексу
+    private static final int CACHE_WALK_LIMIT = 16;
     
     private static final long serialVersionUID = 1L;
     
@@ -56,11 +69,168 @@ public class LinkedListTabulatedFunction implements TabulatedFunction, Serializa
         head = new FunctionNode(null);
         head.prev = head;
         head.next = head;
+        head.skipNext = new FunctionNode[MAX_LEVEL - 1];
+        head.skipWidth = new int[MAX_LEVEL - 1];
+        levels = 1;
         pointsCount = 0;
         lastAccessedNode = head;
         lastAccessedIndex = -1;
     }
 
+    // Строит индекс заново по готовому списку: на уровне l оказываются узлы с номером, кратным 4^l
+    private void rebuildIndex() {
+        head.skipNext = new FunctionNode[MAX_LEVEL - 1];
+        head.skipWidth = new int[MAX_LEVEL - 1];
+        levels = 1;
+
+        FunctionNode[] last = new FunctionNode[MAX_LEVEL];
+        int[] lastRanks = new int[MAX_LEVEL];
+        for (int level = 1; level < MAX_LEVEL; level++) {
+            last[level] = head;
+        }
+
+        int rank = 0;
+        for (FunctionNode node = head.next; node != head; node = node.next) {
+            rank++;
+            int height = Math.min(1 + Integer.numberOfTrailingZeros(rank) / 2, MAX_LEVEL);
+            node.skipNext = null;
+            node.skipWidth = null;
+            if (height > 1) {
+                node.skipNext = new FunctionNode[height - 1];
+                node.skipWidth = new int[height - 1];
+            }
+
+            for (int level = 1; level < height; level++) {
+                last[level].skipNext[level - 1] = node;
+                last[level].skipWidth[level - 1] = rank - lastRanks[level];
+                last[level] = node;
+                lastRanks[level] = rank;
+            }
+            levels = Math.max(levels, height);
+        }
+    }
+
+    private int randomHeight() {
+        // Вероятность подняться на следующий уровень — 1/4
+        int height = 1 + Integer.numberOfTrailingZeros(ThreadLocalRandom.current().nextInt()) / 2;
+        return Math.min(height, MAX_LEVEL);
+    }
+
+    // Последний узел с X < x (или head). Если update != null, запоминает такие узлы
+    // и их номера (head имеет номер 0) на каждом уровне индекса
+    private FunctionNode findPredecessor(double x, FunctionNode[] update, int[] ranks) {
+        FunctionNode node = head;
+        int rank = 0;
+
+        for (int level = levels - 1; level >= 1; level--) {
+            FunctionNode next = node.skipNext[level - 1];
+            while (next != null && next.point.getX() < x) {
+                rank += node.skipWidth[level - 1];
+                node = next;
+                next = node.skipNext[level - 1];
+            }
+            if (update != null) {
+                update[level] = node;
+                ranks[level] = rank;
+            }
+        }
+
+        while (node.next != head && node.next.point.getX() < x) {
+            node = node.next;
+            rank++;
+        }
+        if (update != null) {
+            update[0] = node;
+            ranks[0] = rank;
+        }
+
+        return node;
+    }
+
+    // Последний узел с номером меньше rank (или head); update и ranks — как в findPredecessor
+    private FunctionNode findByRank(int rank, FunctionNode[] update, int[] ranks) {
+        FunctionNode node = head;
+        int position = 0;
+
+        for (int level = levels - 1; level >= 1; level--) {
+            FunctionNode next = node.skipNext[level - 1];
+            while (next != null && position + node.skipWidth[level - 1] < rank) {
+                position += node.skipWidth[level - 1];
+                node = next;
+                next = node.skipNext[level - 1];
+            }
+            if (update != null) {
+                update[level] = node;
+                ranks[level] = position;
+            }
+        }
+
+        while (position + 1 < rank) {
+            node = node.next;
+            position++;
+        }
+        if (update != null) {
+            update[0] = node;
+            ranks[0] = position;
+        }
+
+        return node;
+    }
+
+    // Вставляет узел сразу после update[0], поддерживая индекс
+    private FunctionNode insertNode(FunctionNode[] update, int[] ranks, FunctionPoint point) {
+        FunctionNode newNode = new FunctionNode(point);
+        FunctionNode prevNode = update[0];
+
+        newNode.prev = prevNode;
+        newNode.next = prevNode.next;
+        prevNode.next.prev = newNode;
+        prevNode.next = newNode;
+
+        int height = randomHeight();
+        if (height > levels) {
+            for (int level = levels; level < height; level++) {
+                update[level] = head;
+                ranks[level] = 0;
+            }
+            levels = height;
+        }
+
+        int rank = ranks[0] + 1;
+        if (height > 1) {
+            newNode.skipNext = new FunctionNode[height - 1];
+            newNode.skipWidth = new int[height - 1];
+        }
+        for (int level = 1; level < height; level++) {
+            FunctionNode before = update[level];
+            FunctionNode after = before.skipNext[level - 1];
+
+            newNode.skipNext[level - 1] = after;
+            if (after != null) {
+                newNode.skipWidth[level - 1] = before.skipWidth[level - 1] - (rank - ranks[level]) + 1;
+            }
+            before.skipNext[level - 1] = newNode;
+            before.skipWidth[level - 1] = rank - ranks[level];
+        }
+        for (int level = height; level < levels; level++) {
+            if (update[level].skipNext[level - 1] != null) {
+                update[level].skipWidth[level - 1]++;
+            }
+        }
+
+        pointsCount++;
+
+        lastAccessedNode = newNode;
+        lastAccessedIndex = rank - 1;
+
+        return newNode;
+    }
+
+    // Нужен для Externalizable
+    public LinkedListTabulatedFunction() {
+        initializeList();
+    }
+
     public LinkedListTabulatedFunction(double leftX, double rightX, int pointsCount) {
         if (leftX >= rightX) {
             throw new IllegalArgumentException("Левая граница должна быть меньше правой");
@@ -73,8 +243,9 @@ public class LinkedListTabulatedFunction implements TabulatedFunction, Serializa
         double step = (rightX - leftX) / (pointsCount - 1);
         for (int i = 0; i < pointsCount; i++) {
             double x = leftX + i * step;
-            addNodeToTail().point = new FunctionPoint(x, 0);
+            appendNode(new FunctionPoint(x, 0));
         }
+        rebuildIndex();
     }
     
     public LinkedListTabulatedFunction(double leftX, double rightX, double[] values) {
@@ -89,8 +260,9 @@ public class LinkedListTabulatedFunction implements TabulatedFunction, Serializa
         double step = (rightX - leftX) / (values.length - 1);
         for (int i = 0; i < values.length; i++) {
             double x = leftX + i * step;
-            addNodeToTail().point = new FunctionPoint(x, values[i]);
+            appendNode(new FunctionPoint(x, values[i]));
         }
+        rebuildIndex();
     }
 
     public LinkedListTabulatedFunction(FunctionPoint[] points) {
@@ -106,8 +278,9 @@ public class LinkedListTabulatedFunction implements TabulatedFunction, Serializa
         
         initializeList();
         for (FunctionPoint point : points) {
-            addNodeToTail().point = new FunctionPoint(point);
+            appendNode(new FunctionPoint(point));
         }
+        rebuildIndex();
     }
 
     private FunctionNode getNodeByIndex(int index) {
@@ -116,7 +289,7 @@ public class LinkedListTabulatedFunction implements TabulatedFunction, Serializa
         }
 
         FunctionNode current;
-        if (lastAccessedIndex != -1 && Math.abs(index - lastAccessedIndex) < Math.min(index, pointsCount - index)) {
+        if (lastAccessedIndex != -1 && Math.abs(index - lastAccessedIndex) <= CACHE_WALK_LIMIT) {
             current = lastAccessedNode;
             int currentIndex = lastAccessedIndex;
         
@@ -130,10 +303,7 @@ public class LinkedListTabulatedFunction implements TabulatedFunction, Serializa
                 }
             }
         } else {
-            current = head.next;
-            for (int i = 0; i < index; i++) {
-                current = current.next;
-            }
+            current = findByRank(index + 1, null, null).next;
         }
     
         lastAccessedNode = current;
@@ -147,26 +317,11 @@ public class LinkedListTabulatedFunction implements TabulatedFunction, Serializa
             throw new FunctionPointIndexOutOfBoundsException("Индекс: " + index);
         }
 
-        FunctionNode newNode = new FunctionNode(new FunctionPoint(0, 0));
-        FunctionNode currentNode;
-
-        if (index == pointsCount) {
-            currentNode = head;
-        } else {
-            currentNode = getNodeByIndex(index);
-        }
+        FunctionNode[] update = new FunctionNode[MAX_LEVEL];
+        int[] ranks = new int[MAX_LEVEL];
+        findByRank(index + 1, update, ranks);
 
-        newNode.prev = currentNode.prev;
-        newNode.next = currentNode;
-        currentNode.prev.next = newNode;
-        currentNode.prev = newNode;
-    
-        pointsCount++;
-        
-        lastAccessedNode = newNode;
-        lastAccessedIndex = index;
-
-        return newNode;
+        return insertNode(update, ranks, new FunctionPoint(0, 0));
     }
 
     private FunctionNode deleteNodeByIndex(int index) {
@@ -174,7 +329,29 @@ public class LinkedListTabulatedFunction implements TabulatedFunction, Serializa
             throw new IllegalStateException("Нельзя удалить точку: минимальное количество точек - 3");
         }
 
-        FunctionNode nodeToDelete = getNodeByIndex(index);
+        if (index < 0 || index >= pointsCount) {
+            throw new FunctionPointIndexOutOfBoundsException("Индекс " + index + " вне границ [0, " + (pointsCount - 1) + "]");
+        }
+
+        FunctionNode[] update = new FunctionNode[MAX_LEVEL];
+        int[] ranks = new int[MAX_LEVEL];
+        FunctionNode nodeToDelete = findByRank(index + 1, update, ranks).next;
+
+        for (int level = 1; level < levels; level++) {
+            FunctionNode before = update[level];
+            if (before.skipNext[level - 1] == nodeToDelete) {
+                FunctionNode after = nodeToDelete.skipNext[level - 1];
+                if (after != null) {
+                    before.skipWidth[level - 1] += nodeToDelete.skipWidth[level - 1] - 1;
+                }
+                before.skipNext[level - 1] = after;
+            } else if (before.skipNext[level - 1] != null) {
+                before.skipWidth[level - 1]--;
+            }
+        }
+        while (levels > 1 && head.skipNext[levels - 2] == null) {
+            levels--;
+        }
     
         nodeToDelete.prev.next = nodeToDelete.next;
         nodeToDelete.next.prev = nodeToDelete.prev;
@@ -204,17 +381,59 @@ public class LinkedListTabulatedFunction implements TabulatedFunction, Serializa
             return Double.NaN;
         }
 
-        FunctionNode current = head.next;
-        while (current != head && current.next != head) {
-            if (lessOrEqual(current.point.getX(), x) && lessOrEqual(x, current.next.point.getX())) {
-                double k = (current.next.point.getY() - current.point.getY()) / (current.next.point.getX() - current.point.getX());
-                return current.point.getY() + k * (x - current.point.getX());
-            }
+        FunctionNode current = findSegmentNode(x);
+        double k = (current.next.point.getY() - current.point.getY()) / (current.next.point.getX() - current.point.getX());
+        return current.point.getY() + k * (x - current.point.getX());
+    }
 
+    // Левый узел первого отрезка [x1, x2], для которого x1 <= x <= x2 с точностью EPSILON
+    private FunctionNode findSegmentNode(double x) {
+        FunctionNode current = findPredecessor(x, null, null);
+        if (current == head || (current.next != head && current.next.point.getX() <= x)) {
             current = current.next;
         }
+        if (current.next == head) {
+            current = current.prev;
+        }
+        while (current.prev != head && lessOrEqual(x, current.point.getX())) {
+            current = current.prev;
+        }
+        return current;
+    }
 
-        return Double.NaN;
+    @Override
+    public void getFunctionValues(double[] arguments, double[] values, int from, int to) {
+        double left = getLeftDomainBorder();
+        double right = getRightDomainBorder();
+        // Курсор по списку: для упорядоченных аргументов весь пакет проходится за один проход.
+        // Пакет, начинающийся с середины сетки, сразу ставит курсор через индекс
+        FunctionNode current = head.next;
+        if (from < to && arguments[from] >= left && arguments[from] <= right) {
+            current = findSegmentNode(arguments[from]);
+        }
+
+        for (int i = from; i < to; i++) {
+            double x = arguments[i];
+            if (x < left || x > right) {
+                values[i] = Double.NaN;
+                continue;
+            }
+
+            if (x < current.point.getX()) {
+                current = findSegmentNode(x);
+            } else {
+                while (current.next.next != head && !lessOrEqual(x, current.next.point.getX())) {
+                    current = current.next;
+                }
+                // Как и в getFunctionValue, берётся первый подходящий с точностью EPSILON отрезок
+                while (current.prev != head && lessOrEqual(x, current.point.getX())) {
+                    current = current.prev;
+                }
+            }
+
+            double k = (current.next.point.getY() - current.point.getY()) / (current.next.point.getX() - current.point.getX());
+            values[i] = current.point.getY() + k * (x - current.point.getX());
+        }
     }
 
     public int getPointsCount() {
@@ -272,28 +491,67 @@ public class LinkedListTabulatedFunction implements TabulatedFunction, Serializa
     }
 
     public void addPoint(FunctionPoint point) throws InappropriateFunctionPointException {
+        FunctionNode[] update = new FunctionNode[MAX_LEVEL];
+        int[] ranks = new int[MAX_LEVEL];
+        FunctionNode prevNode = findPredecessor(point.getX(), update, ranks);
+
+        // Точки упорядочены, поэтому совпасть с новой может только одна из соседних
+        if ((prevNode != head && equals(prevNode.point.getX(), point.getX()))
+                || (prevNode.next != head && equals(prevNode.next.point.getX(), point.getX()))) {
+            throw new InappropriateFunctionPointException("Точка с X=" + point.getX() + " уже существует");
+        }
+
+        insertNode(update, ranks, new FunctionPoint(point));
+    }
+
+    @Override
+    public void addPoints(FunctionPoint[] points) throws InappropriateFunctionPointException {
+        FunctionPoint[] batch = TabulatedFunctions.sortPointsByX(points);
+        if (batch.length == 0) {
+            return;
+        }
+
+        // Сначала проверяем весь набор, чтобы при ошибке функция осталась неизменной
         FunctionNode current = head.next;
-        while (current != head) {
-            if (equals(current.point.getX(), point.getX())) {
-                throw new InappropriateFunctionPointException("Точка с X=" + point.getX() + " уже существует");
+        for (FunctionPoint point : batch) {
+            double x = point.getX();
+            while (current != head && current.point.getX() < x) {
+                current = current.next;
+            }
+            if ((current.prev != head && equals(current.prev.point.getX(), x))
+                    || (current != head && equals(current.point.getX(), x))) {
+                throw new InappropriateFunctionPointException("Точка с X=" + x + " уже существует");
             }
-
-            current = current.next;
         }
 
-        int insertIndex = 0;
+        // Слияние за один проход по списку; индекс перестраивается один раз в конце
         current = head.next;
-        while (current != head && current.point.getX() < point.getX()) {
-            current = current.next;
-            insertIndex++;
+        for (FunctionPoint point : batch) {
+            while (current != head && current.point.getX() < point.getX()) {
+                current = current.next;
+            }
+
+            FunctionNode newNode = new FunctionNode(new FunctionPoint(point));
+            newNode.prev = current.prev;
+            newNode.next = current;
+            current.prev.next = newNode;
+            current.prev = newNode;
         }
 
-        FunctionNode newNode = addNodeByIndex(insertIndex);
-        newNode.point = new FunctionPoint(point);
+        pointsCount += batch.length;
+        lastAccessedNode = head;
+        lastAccessedIndex = -1;
+        rebuildIndex();
     }
 
-    private FunctionNode addNodeToTail() {
-        return addNodeByIndex(pointsCount);
+    // Добавляет узел в конец основного списка без индекса; после серии добавлений нужен rebuildIndex()
+    private void appendNode(FunctionPoint point) {
+        FunctionNode newNode = new FunctionNode(point);
+        newNode.prev = head.prev;
+        newNode.next = head;
+        head.prev.next = newNode;
+        head.prev = newNode;
+        pointsCount++;
     }
 
     // Итератор
@@ -403,29 +661,44 @@ public class LinkedListTabulatedFunction implements TabulatedFunction, Serializa
         try {
             LinkedListTabulatedFunction cloned = (LinkedListTabulatedFunction) super.clone();
             
-            cloned.head = new FunctionNode(null);
-            cloned.head.prev = cloned.head;
-            cloned.head.next = cloned.head;
-            cloned.pointsCount = 0;
-            cloned.lastAccessedNode = cloned.head;
-            cloned.lastAccessedIndex = -1;
+            cloned.initializeList();
             
             FunctionNode current = this.head.next;
             while (current != this.head) {
-                FunctionNode newNode = new FunctionNode(current.point.clone());
-                
-                newNode.prev = cloned.head.prev;
-                newNode.next = cloned.head;
-                cloned.head.prev.next = newNode;
-                cloned.head.prev = newNode;
-                
-                cloned.pointsCount++;
+                cloned.appendNode(current.point.clone());
                 current = current.next;
             }
+            cloned.rebuildIndex();
             
             return cloned;
         } catch (CloneNotSupportedException e) {
             throw new AssertionError("Клонирование не поддерживается", e);
         }
     }
-}
\ No newline at end of file
+
+    // Формат совпадает с ArrayTabulatedFunction: количество точек, затем пары (x, y).
+    // Список обходится циклом, поэтому размер стека не зависит от количества точек
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeInt(pointsCount);
+        for (FunctionNode node = head.next; node != head; node = node.next) {
+            out.writeDouble(node.point.getX());
+            out.writeDouble(node.point.getY());
+        }
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        initializeList();
+
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            double x = in.readDouble();
+            double y = in.readDouble();
+            appendNode(new FunctionPoint(x, y));
+        }
+
+        // Индекс не сериализуется и восстанавливается по основному списку
+        rebuildIndex();
+    }
+}
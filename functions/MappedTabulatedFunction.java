@@ -0,0 +1,439 @@
+package functions;
+
+import java.io.IOException;
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.zip.CRC32C;
+
+// Табулированная функция только для чтения, отображённая в память из файла.
+// Вычисления идут прямо по страницам файла без копирования, а страницы кэша ОС
+// разделяются между процессами, открывшими один и тот же файл.
+//
+// Формат файла (все числа little-endian):
+//   0  int    сигнатура MAGIC
+//   4  int    версия формата
+//   8  long   количество точек n
+//   16 double шаг равномерной сетки по X или 0, если сетка неравномерная
+//   24 long   смещение блока X
+//   32 long   смещение блока Y
+//   40 long   CRC32C значений X, затем Y (little-endian), с версии 2
+//   48..63    зарезервировано (нули)
+// Блоки X и Y по n значений double выровнены по 64 байтам.
+// Открытие не читает данные: проверяются только заголовок и крайние точки, поэтому его время
+// не зависит от размера файла. Упорядоченность X проверяется при записи; при чтении каждый
+// поиск проверяет лишь найденный отрезок, что ловит часть повреждений, но не все.
+// Полную проверку файла, включая контрольную сумму, выполняет verify()
+public final class MappedTabulatedFunction implements TabulatedFunction, Serializable {
+    static final int MAGIC = 0x54414246;
+    static final int VERSION = 2;
+    // Файлы версии 1 не содержат контрольной суммы и по-прежнему открываются
+    private static final int FIRST_VERSION = 1;
+    // Значение поля checksum для файлов без контрольной суммы
+    private static final long NO_CHECKSUM = -1;
+    static final int HEADER_SIZE = 64;
+    private static final int ALIGNMENT = 64;
+    // Один блок отображается целиком, поэтому его размер ограничен 2 ГБ
+    private static final long MAX_POINTS = Integer.MAX_VALUE / Double.BYTES;
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient DoubleBuffer xs;
+    private final transient DoubleBuffer ys;
+    private final int pointsCount;
+    private final double step;
+    private final long checksum;
+
+    private MappedTabulatedFunction(DoubleBuffer xs, DoubleBuffer ys, int pointsCount, double step, long checksum) {
+        this.xs = xs;
+        this.ys = ys;
+        this.pointsCount = pointsCount;
+        this.step = step;
+        this.checksum = checksum;
+    }
+
+    private static long align(long offset) {
+        return (offset + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+
+    // Шаг сетки, если X образуют равномерную сетку (с допуском ArrayTabulatedFunction), иначе 0
+    private static double detectUniformStep(TabulatedFunction function) {
+        int pointsCount = function.getPointsCount();
+        double x0 = function.getPointX(0);
+        double candidateStep = (function.getPointX(pointsCount - 1) - x0) / (pointsCount - 1);
+        for (int i = 1; i < pointsCount - 1; i++) {
+            if (Math.abs(function.getPointX(i) - (x0 + i * candidateStep)) > candidateStep * 1e-6) {
+                return 0;
+            }
+        }
+        return candidateStep;
+    }
+
+    static void write(TabulatedFunction function, Path path) throws IOException {
+        int pointsCount = function.getPointsCount();
+        if (pointsCount < 2) {
+            throw new IllegalArgumentException("Количество точек должно быть не менее 2");
+        }
+        if (pointsCount > MAX_POINTS) {
+            throw new IllegalArgumentException("Слишком много точек для отображения в память: " + pointsCount);
+        }
+        // Чтение полагается на упорядоченность X, поэтому она проверяется здесь, а не при каждом открытии
+        for (int i = 1; i < pointsCount; i++) {
+            if (!(function.getPointX(i) > function.getPointX(i - 1))) {
+                throw new IllegalArgumentException("Точки должны быть строго упорядочены по возрастанию X");
+            }
+        }
+
+        long xsOffset = HEADER_SIZE;
+        long ysOffset = align(xsOffset + (long) pointsCount * Double.BYTES);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            Checksum checksum = new Checksum();
+
+            // Заголовок пишется последним, когда известна контрольная сумма
+            channel.position(HEADER_SIZE);
+            for (int i = 0; i < pointsCount; i++) {
+                if (!buffer.hasRemaining()) {
+                    drain(channel, buffer);
+                }
+                double x = function.getPointX(i);
+                buffer.putDouble(x);
+                checksum.add(x);
+            }
+            // Выравнивание блока Y
+            for (long i = xsOffset + (long) pointsCount * Double.BYTES; i < ysOffset; i++) {
+                if (!buffer.hasRemaining()) {
+                    drain(channel, buffer);
+                }
+                buffer.put((byte) 0);
+            }
+            for (int i = 0; i < pointsCount; i++) {
+                if (!buffer.hasRemaining()) {
+                    drain(channel, buffer);
+                }
+                double y = function.getPointY(i);
+                buffer.putDouble(y);
+                checksum.add(y);
+            }
+            drain(channel, buffer);
+
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+            buffer.putLong(pointsCount);
+            buffer.putDouble(detectUniformStep(function));
+            buffer.putLong(xsOffset);
+            buffer.putLong(ysOffset);
+            buffer.putLong(checksum.getValue());
+            while (buffer.position() < HEADER_SIZE) {
+                buffer.put((byte) 0);
+            }
+            channel.position(0);
+            drain(channel, buffer);
+        }
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    // CRC32C последовательности значений double в little-endian
+    private static final class Checksum {
+        private final CRC32C crc = new CRC32C();
+        private final ByteBuffer pending = ByteBuffer.allocate(1 << 13).order(ByteOrder.LITTLE_ENDIAN);
+
+        void add(double value) {
+            if (!pending.hasRemaining()) {
+                update();
+            }
+            pending.putDouble(value);
+        }
+
+        long getValue() {
+            update();
+            return crc.getValue();
+        }
+
+        private void update() {
+            pending.flip();
+            crc.update(pending);
+            pending.clear();
+        }
+    }
+
+    static MappedTabulatedFunction map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new IOException("Файл слишком короткий для заголовка");
+            }
+
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException("Неверная сигнатура файла табулированной функции");
+            }
+            int version = header.getInt(4);
+            if (version < FIRST_VERSION || version > VERSION) {
+                throw new IOException("Неподдерживаемая версия формата: " + version);
+            }
+
+            long pointsCount = header.getLong(8);
+            double step = header.getDouble(16);
+            long xsOffset = header.getLong(24);
+            long ysOffset = header.getLong(32);
+            long checksum = version >= 2 ? header.getLong(40) : NO_CHECKSUM;
+            if (pointsCount < 2 || pointsCount > MAX_POINTS) {
+                throw new IOException("Неверное количество точек: " + pointsCount);
+            }
+
+            long blockSize = pointsCount * Double.BYTES;
+            if (xsOffset < HEADER_SIZE || ysOffset < xsOffset + blockSize || ysOffset + blockSize > size
+                    || xsOffset % Double.BYTES != 0 || ysOffset % Double.BYTES != 0) {
+                throw new IOException("Повреждённый файл табулированной функции");
+            }
+
+            // Отображение остаётся действительным и после закрытия канала
+            DoubleBuffer xs = channel.map(FileChannel.MapMode.READ_ONLY, xsOffset, blockSize)
+                    .order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+            DoubleBuffer ys = channel.map(FileChannel.MapMode.READ_ONLY, ysOffset, blockSize)
+                    .order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+            // Только крайние точки: шаг равномерной сетки при записи вычисляется по ним же
+            double left = xs.get(0);
+            double right = xs.get((int) pointsCount - 1);
+            if (!(left < right)) {
+                throw new IOException("Повреждённый файл табулированной функции: границы области определения");
+            }
+            if (!(step >= 0) || (step > 0 && Double.compare((right - left) / (pointsCount - 1), step) != 0)) {
+                throw new IOException("Шаг сетки в заголовке не соответствует точкам: " + step);
+            }
+            return new MappedTabulatedFunction(xs, ys, (int) pointsCount, step, checksum);
+        }
+    }
+
+    // Полная проверка данных: X строго возрастают, шаг в заголовке совпадает с точками,
+    // контрольная сумма (для файлов версии 2) совпадает с данными. Читает файл целиком
+    public void verify() throws IOException {
+        Checksum actual = new Checksum();
+        for (int i = 0; i < pointsCount; i++) {
+            if (i > 0 && !(xs.get(i) > xs.get(i - 1))) {
+                throw new IOException("X точек не возрастают строго: точка " + i);
+            }
+            actual.add(xs.get(i));
+        }
+        for (int i = 0; i < pointsCount; i++) {
+            actual.add(ys.get(i));
+        }
+
+        if (Double.compare(detectUniformStep(this), step) != 0) {
+            throw new IOException("Шаг сетки в заголовке не соответствует точкам: " + step);
+        }
+        if (checksum != NO_CHECKSUM && actual.getValue() != checksum) {
+            throw new IOException("Контрольная сумма файла табулированной функции не совпадает");
+        }
+    }
+
+    // Значение на отрезке, найденном поиском. Отрезок должен быть упорядочен и содержать x;
+    // упорядоченность остальных точек здесь не проверяется
+    private double valueAt(int segment, double x) {
+        int i = TabulatedSearch.adjustSegmentIndex(xs, segment, x);
+        double x1 = xs.get(i);
+        double x2 = xs.get(i + 1);
+        if (!(x1 < x2) || !TabulatedSearch.lessOrEqual(x1, x) || !TabulatedSearch.lessOrEqual(x, x2)) {
+            throw new IllegalStateException("Повреждённый файл табулированной функции: X не возрастают около точки " + i);
+        }
+        return TabulatedSearch.interpolate(x, x1, ys.get(i), x2, ys.get(i + 1));
+    }
+
+    public double getLeftDomainBorder() {
+        return xs.get(0);
+    }
+
+    public double getRightDomainBorder() {
+        return xs.get(pointsCount - 1);
+    }
+
+    public double getFunctionValue(double x) {
+        if (x < getLeftDomainBorder() || x > getRightDomainBorder()) {
+            return Double.NaN;
+        }
+
+        return valueAt(TabulatedSearch.locateSegment(xs, pointsCount, step, x, -1), x);
+    }
+
+    @Override
+    public void getFunctionValues(double[] arguments, double[] values, int from, int to) {
+        double left = getLeftDomainBorder();
+        double right = getRightDomainBorder();
+        int segment = -1;
+
+        for (int i = from; i < to; i++) {
+            double x = arguments[i];
+            if (x < left || x > right) {
+                values[i] = Double.NaN;
+                continue;
+            }
+
+            segment = TabulatedSearch.locateSegment(xs, pointsCount, step, x, segment);
+            values[i] = valueAt(segment, x);
+        }
+    }
+
+    public int getPointsCount() {
+        return pointsCount;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= pointsCount) {
+            throw new FunctionPointIndexOutOfBoundsException("Индекс " + index + " вне границ [0, " + (pointsCount - 1) + "]");
+        }
+    }
+
+    public FunctionPoint getPoint(int index) {
+        checkIndex(index);
+        return new FunctionPoint(xs.get(index), ys.get(index));
+    }
+
+    public double getPointX(int index) {
+        checkIndex(index);
+        return xs.get(index);
+    }
+
+    public double getPointY(int index) {
+        checkIndex(index);
+        return ys.get(index);
+    }
+
+    public void setPoint(int index, FunctionPoint point) {
+        throw new UnsupportedOperationException("Отображённую в память табулированную функцию нельзя изменять");
+    }
+
+    public void setPointX(int index, double x) {
+        throw new UnsupportedOperationException("Отображённую в память табулированную функцию нельзя изменять");
+    }
+
+    public void setPointY(int index, double y) {
+        throw new UnsupportedOperationException("Отображённую в память табулированную функцию нельзя изменять");
+    }
+
+    public void deletePoint(int index) {
+        throw new UnsupportedOperationException("Отображённую в память табулированную функцию нельзя изменять");
+    }
+
+    public void addPoint(FunctionPoint point) {
+        throw new UnsupportedOperationException("Отображённую в память табулированную функцию нельзя изменять");
+    }
+
+    @Override
+    public void addPoints(FunctionPoint[] points) {
+        throw new UnsupportedOperationException("Отображённую в память табулированную функцию нельзя изменять");
+    }
+
+    @Override
+    public Iterator<FunctionPoint> iterator() {
+        return new Iterator<FunctionPoint>() {
+            private int currentIndex = 0;
+
+            @Override
+            public boolean hasNext() {
+                return currentIndex < pointsCount;
+            }
+
+            @Override
+            public FunctionPoint next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("Нет следующего элемента");
+                }
+                FunctionPoint point = new FunctionPoint(xs.get(currentIndex), ys.get(currentIndex));
+                currentIndex++;
+                return point;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("Удаление не поддерживается");
+            }
+        };
+    }
+
+    // Отображение нельзя сериализовать, поэтому в поток записывается копия в куче
+    private Object writeReplace() throws ObjectStreamException {
+        FunctionPoint[] points = new FunctionPoint[pointsCount];
+        for (int i = 0; i < pointsCount; i++) {
+            points[i] = new FunctionPoint(xs.get(i), ys.get(i));
+        }
+        return new ArrayTabulatedFunction(points);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{");
+
+        for (int i = 0; i < pointsCount; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append("(").append(xs.get(i)).append("; ").append(ys.get(i)).append(")");
+        }
+
+        sb.append("}");
+        return sb.toString();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null) return false;
+
+        if (obj instanceof TabulatedFunction) {
+            TabulatedFunction other = (TabulatedFunction) obj;
+
+            if (pointsCount != other.getPointsCount()) {
+                return false;
+            }
+
+            int index = 0;
+            for (FunctionPoint point : other) {
+                if (!TabulatedSearch.equals(xs.get(index), point.getX()) || !TabulatedSearch.equals(ys.get(index), point.getY())) {
+                    return false;
+                }
+                index++;
+            }
+
+            return true;
+        }
+
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = pointsCount;
+
+        for (int i = 0; i < pointsCount; i++) {
+            long xBits = Double.doubleToLongBits(xs.get(i));
+            long yBits = Double.doubleToLongBits(ys.get(i));
+            hash ^= (int)(xBits ^ (xBits >>> 32)) ^ (int)(yBits ^ (yBits >>> 32));
+        }
+
+        return hash;
+    }
+
+    // Данные доступны только для чтения, поэтому копия не нужна
+    @Override
+    public MappedTabulatedFunction clone() {
+        return this;
+    }
+}
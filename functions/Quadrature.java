@@ -0,0 +1,374 @@
+package functions;
+
+import functions.meta.FunctionOptimizer;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+// Численное интегрирование с заданной точностью.
+// Каждый метод останавливается, когда оценка погрешности не больше
+// max(absoluteTolerance, relativeTolerance * |интеграл|). Если раньше исчерпан
+// лимит MAX_EVALUATIONS вычислений функции, возвращается лучшая полученная оценка
+// вместе с её погрешностью — вызывающий код может сравнить её с требуемой
+public final class Quadrature {
+    public enum Method {
+        // Адаптивный метод Симпсона, погрешность оценивается по правилу Рунге
+        SIMPSON,
+        // Составная формула Гаусса — Лежандра по 8 узлам; число частей удваивается до сходимости
+        GAUSS_LEGENDRE,
+        // Метод Ромберга: экстраполяция Ричардсона последовательности формул трапеций
+        ROMBERG,
+        // Адаптивная формула Гаусса — Кронрода G7-K15: делится отрезок с наибольшей погрешностью
+        GAUSS_KRONROD
+    }
+
+    // Оценка интеграла, граница её погрешности и число вычислений функции
+    public static final class Result {
+        private final double value;
+        private final double error;
+        private final long evaluations;
+
+        Result(double value, double error, long evaluations) {
+            this.value = value;
+            this.error = error;
+            this.evaluations = evaluations;
+        }
+
+        public double getValue() {
+            return value;
+        }
+
+        public double getError() {
+            return error;
+        }
+
+        public long getEvaluations() {
+            return evaluations;
+        }
+
+        @Override
+        public String toString() {
+            return value + " ± " + error + " (вычислений функции: " + evaluations + ")";
+        }
+    }
+
+    // Предел числа вычислений функции для одного интеграла
+    static final long MAX_EVALUATIONS = 1L << 22;
+
+    private static final int SIMPSON_MIN_DEPTH = 3;
+    private static final int SIMPSON_MAX_DEPTH = 50;
+    private static final int ROMBERG_MIN_LEVELS = 4;
+    private static final int ROMBERG_MAX_LEVELS = 30;
+    // Сколько узлов Ромберга вычисляется одним пакетом
+    private static final int BATCH_SIZE = 4096;
+
+    // Узлы и веса Гаусса — Лежандра на [-1, 1]
+    private static final int LEGENDRE_ORDER = 8;
+    private static final double[] LEGENDRE_NODES = new double[LEGENDRE_ORDER];
+    private static final double[] LEGENDRE_WEIGHTS = new double[LEGENDRE_ORDER];
+
+    // Узлы Кронрода на [0, 1] (последний — центр) и веса K15; узлы с нечётными номерами — узлы G7
+    private static final double[] KRONROD_NODES = {
+        0.991455371120812639206854697526329, 0.949107912342758524526189684047851,
+        0.864864423359769072789712788640926, 0.741531185599394439863864773280788,
+        0.586087235467691130294144845693013, 0.405845151377397166906606412076961,
+        0.207784955007898467600689403773245, 0.0
+    };
+    private static final double[] KRONROD_WEIGHTS = {
+        0.022935322010529224963732008058970, 0.063092092629978553290700663189204,
+        0.104790010322250183839876322541518, 0.140653259715525918745189590510238,
+        0.169004726639267902826583426598550, 0.190350578064785409913256402421014,
+        0.204432940075298892414161999234649, 0.209482141084727828012999174891714
+    };
+    private static final double[] GAUSS_WEIGHTS = {
+        0.129484966168869693270611432679082, 0.279705391489276667901467771423780,
+        0.381830050505118944950369775488975, 0.417959183673469387755102040816327
+    };
+
+    static {
+        // Корни многочлена Лежандра находятся методом Ньютона
+        for (int i = 0; i < (LEGENDRE_ORDER + 1) / 2; i++) {
+            double z = Math.cos(Math.PI * (i + 0.75) / (LEGENDRE_ORDER + 0.5));
+            double derivative;
+            int iterations = 0;
+            while (true) {
+                double p1 = 1.0;
+                double p2 = 0.0;
+                for (int j = 1; j <= LEGENDRE_ORDER; j++) {
+                    double p3 = p2;
+                    p2 = p1;
+                    p1 = ((2 * j - 1) * z * p2 - (j - 1) * p3) / j;
+                }
+                derivative = LEGENDRE_ORDER * (z * p1 - p2) / (z * z - 1);
+                double previous = z;
+                z = previous - p1 / derivative;
+                if (Math.abs(z - previous) <= 1e-16 || ++iterations == 100) {
+                    break;
+                }
+            }
+            double weight = 2 / ((1 - z * z) * derivative * derivative);
+            LEGENDRE_NODES[i] = -z;
+            LEGENDRE_NODES[LEGENDRE_ORDER - 1 - i] = z;
+            LEGENDRE_WEIGHTS[i] = weight;
+            LEGENDRE_WEIGHTS[LEGENDRE_ORDER - 1 - i] = weight;
+        }
+    }
+
+    private final Function function;
+    private final double absoluteTolerance;
+    private final double relativeTolerance;
+    private long evaluations;
+    // Накопленная погрешность метода Симпсона
+    private double simpsonError;
+
+    private Quadrature(Function function, double absoluteTolerance, double relativeTolerance) {
+        this.function = function;
+        this.absoluteTolerance = absoluteTolerance;
+        this.relativeTolerance = relativeTolerance;
+    }
+
+    public static Result integrate(Function function, double a, double b, Method method,
+            double absoluteTolerance, double relativeTolerance) {
+        Functions.checkIntegrationInterval(function, a, b);
+        if (method == null) {
+            throw new IllegalArgumentException("Не задан метод интегрирования");
+        }
+        if (!(absoluteTolerance >= 0) || !(relativeTolerance >= 0)
+                || absoluteTolerance == 0 && relativeTolerance == 0) {
+            throw new IllegalArgumentException("Погрешности должны быть неотрицательными, и хотя бы одна — положительной");
+        }
+
+        Quadrature quadrature = new Quadrature(FunctionOptimizer.simplify(function), absoluteTolerance, relativeTolerance);
+        switch (method) {
+            case SIMPSON:
+                return quadrature.simpson(a, b);
+            case GAUSS_LEGENDRE:
+                return quadrature.gaussLegendre(a, b);
+            case ROMBERG:
+                return quadrature.romberg(a, b);
+            default:
+                return quadrature.gaussKronrod(a, b);
+        }
+    }
+
+    private double tolerance(double value) {
+        return Math.max(absoluteTolerance, relativeTolerance * Math.abs(value));
+    }
+
+    private double evaluate(double x) {
+        evaluations++;
+        return function.getFunctionValue(x);
+    }
+
+    private void evaluate(double[] arguments, double[] values, int count) {
+        evaluations += count;
+        function.getFunctionValues(arguments, values, 0, count);
+    }
+
+    private Result simpson(double a, double b) {
+        double m = a + (b - a) / 2;
+        double fa = evaluate(a);
+        double fm = evaluate(m);
+        double fb = evaluate(b);
+        double whole = (b - a) / 6 * (fa + 4 * fm + fb);
+
+        double value = simpsonStep(a, fa, m, fm, b, fb, whole, tolerance(whole), 0);
+        return new Result(value, simpsonError, evaluations);
+    }
+
+    // Отрезок [a, b] с серединой m и значением whole по формуле Симпсона делится пополам,
+    // пока разность с суммой половин больше 15 * tolerance
+    private double simpsonStep(double a, double fa, double m, double fm, double b, double fb,
+            double whole, double tolerance, int depth) {
+        double leftMiddle = a + (m - a) / 2;
+        double rightMiddle = m + (b - m) / 2;
+        double fLeftMiddle = evaluate(leftMiddle);
+        double fRightMiddle = evaluate(rightMiddle);
+        double left = (m - a) / 6 * (fa + 4 * fLeftMiddle + fm);
+        double right = (b - m) / 6 * (fm + 4 * fRightMiddle + fb);
+        double delta = left + right - whole;
+
+        boolean converged = depth >= SIMPSON_MIN_DEPTH && Math.abs(delta) <= 15 * tolerance;
+        boolean exhausted = depth >= SIMPSON_MAX_DEPTH || evaluations >= MAX_EVALUATIONS
+                || leftMiddle <= a || rightMiddle >= b;
+        if (converged || exhausted) {
+            simpsonError += Math.abs(delta) / 15;
+            return left + right + delta / 15;
+        }
+
+        return simpsonStep(a, fa, leftMiddle, fLeftMiddle, m, fm, left, tolerance / 2, depth + 1)
+                + simpsonStep(m, fm, rightMiddle, fRightMiddle, b, fb, right, tolerance / 2, depth + 1);
+    }
+
+    private Result gaussLegendre(double a, double b) {
+        int panels = 1;
+        double previous = gaussLegendreSum(a, b, panels);
+        while (true) {
+            panels *= 2;
+            double current = gaussLegendreSum(a, b, panels);
+            double error = Math.abs(current - previous);
+            if (error <= tolerance(current) || panels >= 1 << 20
+                    || evaluations + 2L * panels * LEGENDRE_ORDER > MAX_EVALUATIONS) {
+                return new Result(current, error, evaluations);
+            }
+            previous = current;
+        }
+    }
+
+    // Сумма формул Гаусса — Лежандра по panels равным частям [a, b]
+    private double gaussLegendreSum(double a, double b, int panels) {
+        int count = panels * LEGENDRE_ORDER;
+        double[] arguments = new double[count];
+        double width = (b - a) / panels;
+        for (int panel = 0; panel < panels; panel++) {
+            double center = a + (panel + 0.5) * width;
+            for (int i = 0; i < LEGENDRE_ORDER; i++) {
+                arguments[panel * LEGENDRE_ORDER + i] = center + width / 2 * LEGENDRE_NODES[i];
+            }
+        }
+        double[] values = new double[count];
+        evaluate(arguments, values, count);
+
+        double sum = 0.0;
+        for (int i = 0; i < count; i++) {
+            sum += LEGENDRE_WEIGHTS[i % LEGENDRE_ORDER] * values[i];
+        }
+        return sum * width / 2;
+    }
+
+    private Result romberg(double a, double b) {
+        double[] previousRow = new double[ROMBERG_MAX_LEVELS + 1];
+        double[] row = new double[ROMBERG_MAX_LEVELS + 1];
+        double h = b - a;
+        previousRow[0] = h / 2 * (evaluate(a) + evaluate(b));
+        double value = previousRow[0];
+        double error = Double.POSITIVE_INFINITY;
+
+        double[] arguments = new double[BATCH_SIZE];
+        double[] values = new double[BATCH_SIZE];
+        long nodes = 1;
+        // Сходимость засчитывается на двух уровнях подряд: на одном уровне узлы могут случайно
+        // попасть в период функции, и оценка погрешности окажется ложно малой
+        boolean convergedBefore = false;
+        for (int level = 1; level <= ROMBERG_MAX_LEVELS; level++) {
+            if (evaluations + nodes > MAX_EVALUATIONS) {
+                break;
+            }
+
+            // Новые узлы — середины отрезков предыдущего уровня
+            double sum = 0.0;
+            for (long first = 0; first < nodes; first += BATCH_SIZE) {
+                int count = (int) Math.min(BATCH_SIZE, nodes - first);
+                for (int i = 0; i < count; i++) {
+                    arguments[i] = a + (2 * (first + i) + 1) * (h / 2);
+                }
+                evaluate(arguments, values, count);
+                for (int i = 0; i < count; i++) {
+                    sum += values[i];
+                }
+            }
+            row[0] = previousRow[0] / 2 + h / 2 * sum;
+            h /= 2;
+            nodes *= 2;
+
+            double factor = 4.0;
+            for (int j = 1; j <= level; j++) {
+                row[j] = row[j - 1] + (row[j - 1] - previousRow[j - 1]) / (factor - 1);
+                factor *= 4;
+            }
+            value = row[level];
+            error = Math.abs(row[level] - previousRow[level - 1]);
+            boolean converged = error <= tolerance(value);
+            if (level >= ROMBERG_MIN_LEVELS && converged && convergedBefore) {
+                break;
+            }
+            convergedBefore = converged;
+
+            double[] swap = previousRow;
+            previousRow = row;
+            row = swap;
+        }
+        return new Result(value, error, evaluations);
+    }
+
+    // Отрезок адаптивной формулы Гаусса — Кронрода
+    private static final class Segment {
+        final double a;
+        final double b;
+        final double value;
+        final double error;
+
+        Segment(double a, double b, double value, double error) {
+            this.a = a;
+            this.b = b;
+            this.value = value;
+            this.error = error;
+        }
+    }
+
+    private Result gaussKronrod(double a, double b) {
+        // Первым делится отрезок с наибольшей погрешностью; NaN считается больше любой погрешности
+        PriorityQueue<Segment> segments = new PriorityQueue<>(new Comparator<Segment>() {
+            @Override
+            public int compare(Segment s1, Segment s2) {
+                return Double.compare(s2.error, s1.error);
+            }
+        });
+        double[] arguments = new double[2 * KRONROD_NODES.length - 1];
+        double[] values = new double[arguments.length];
+
+        Segment whole = kronrodSegment(a, b, arguments, values);
+        segments.add(whole);
+        double value = whole.value;
+        double error = whole.error;
+
+        while (!(error <= tolerance(value)) && evaluations + 2 * arguments.length <= MAX_EVALUATIONS) {
+            Segment worst = segments.peek();
+            double m = worst.a + (worst.b - worst.a) / 2;
+            if (m <= worst.a || m >= worst.b) {
+                // Отрезок больше не делится в арифметике double
+                break;
+            }
+            segments.poll();
+
+            Segment left = kronrodSegment(worst.a, m, arguments, values);
+            Segment right = kronrodSegment(m, worst.b, arguments, values);
+            segments.add(left);
+            segments.add(right);
+            value += left.value + right.value - worst.value;
+            error += left.error + right.error - worst.error;
+        }
+
+        // Итоговые суммы пересчитываются заново, без накопленных ошибок округления
+        value = 0.0;
+        error = 0.0;
+        for (Segment segment : segments) {
+            value += segment.value;
+            error += segment.error;
+        }
+        return new Result(value, error, evaluations);
+    }
+
+    private Segment kronrodSegment(double a, double b, double[] arguments, double[] values) {
+        double center = a + (b - a) / 2;
+        double halfLength = (b - a) / 2;
+        int last = KRONROD_NODES.length - 1;
+        for (int i = 0; i < last; i++) {
+            arguments[2 * i] = center - halfLength * KRONROD_NODES[i];
+            arguments[2 * i + 1] = center + halfLength * KRONROD_NODES[i];
+        }
+        arguments[2 * last] = center;
+        evaluate(arguments, values, arguments.length);
+
+        double kronrod = KRONROD_WEIGHTS[last] * values[2 * last];
+        double gauss = GAUSS_WEIGHTS[GAUSS_WEIGHTS.length - 1] * values[2 * last];
+        for (int i = 0; i < last; i++) {
+            double pair = values[2 * i] + values[2 * i + 1];
+            kronrod += KRONROD_WEIGHTS[i] * pair;
+            if (i % 2 == 1) {
+                gauss += GAUSS_WEIGHTS[i / 2] * pair;
+            }
+        }
+        return new Segment(a, b, kronrod * halfLength, Math.abs(kronrod - gauss) * halfLength);
+    }
+}
@@ -11,5 +11,24 @@ public interface TabulatedFunction extends Function, Iterable<FunctionPoint>, Cl
     void deletePoint(int index);
     void addPoint(FunctionPoint point) throws InappropriateFunctionPointException;
     
+    // Добавляет набор точек. Реализация по умолчанию добавляет их по одной в порядке
+    // возрастания X, поэтому при ошибке часть точек может оказаться уже добавленной
+    default void addPoints(FunctionPoint[] points) throws InappropriateFunctionPointException {
+        for (FunctionPoint point : TabulatedFunctions.sortPointsByX(points)) {
+            addPoint(point);
+        }
+    }
+    
+    // Точный интеграл кусочно-линейной функции на [a, b]
+    default double integral(double a, double b) {
+        return Functions.integrate(this, a, b);
+    }
+    
+    // Неизменяемая копия с заранее вычисленными наклонами отрезков,
+    // которую можно использовать из нескольких потоков без синхронизации
+    default TabulatedFunction freeze() {
+        return new FrozenTabulatedFunction(this);
+    }
+
     TabulatedFunction clone();
 }
\ No newline at end of file
@@ -0,0 +1,394 @@
+package functions;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Архив из многих именованных табулированных функций в одном файле с произвольным доступом.
+//
+// Формат файла (big-endian):
+//   0  int  сигнатура MAGIC
+//   4  int  версия формата
+//   8  long смещение последнего участка оглавления
+//   16      записи функций в формате outputTabulatedFunction: int n, затем n пар (x, y)
+//   участок оглавления: int количество имён, long смещение предыдущего участка (0 — его нет),
+//   затем для каждой функции UTF-имя и long смещение записи
+// Функции только добавляются. Новые записи пишутся в конец файла, после действующего оглавления,
+// которое при этом не изменяется. При flush() или close() в конец дописывается участок
+// оглавления только с новыми именами и ссылкой на предыдущий, и только после этого заголовок
+// переключается на него. Если процесс прервётся до переключения, архив откроется со старым
+// оглавлением и без новых функций.
+// Когда в добавочных участках набирается не меньше имён, чем в последнем полном оглавлении,
+// flush() пишет полное оглавление без ссылки. Поэтому суммарный объём оглавлений растёт
+// линейно с числом функций, а цепочка, которую проходит открытие, не длиннее их количества.
+// Участки, заменённые полным оглавлением, и записи, не попавшие в оглавление из-за сбоя,
+// остаются в файле неиспользуемыми; их удаляет compact().
+// Чтение одной функции — поиск смещения в хеш-таблице и одно чтение записи.
+// Объект не потокобезопасен
+public final class TabulatedFunctionArchive implements Closeable {
+    static final int MAGIC = 0x54414241;
+    static final int VERSION = 2;
+    // Версия 1: одно оглавление без ссылки на предыдущий участок; такие архивы читаются,
+    // а первый flush() переводит их в версию 2 полным оглавлением
+    private static final int FIRST_VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+
+    private final Path path;
+    private FileChannel channel;
+    private final MappedByteBuffer mapped;
+    private Map<String, Long> index;
+    // Смещение оглавления, на которое указывает заголовок; все записи из него лежат до этого места
+    private long indexOffset;
+    // Конец файла: сюда пишутся новые записи и новое оглавление
+    private long appendOffset;
+    // Имён в последнем полном оглавлении и в добавочных участках после него; -1 — полное
+    // оглавление нужно записать при следующем flush() (архив версии 1)
+    private int fullEntries;
+    private int chainEntries;
+    // Сколько первых имён index уже записано в оглавление
+    private int flushedEntries;
+
+    // Оглавление, прочитанное из файла
+    private static final class Index {
+        final Map<String, Long> entries = new LinkedHashMap<>();
+        long offset;
+        int fullEntries;
+    }
+
+    private TabulatedFunctionArchive(Path path, FileChannel channel, MappedByteBuffer mapped, Index index,
+            long appendOffset) {
+        this.path = path;
+        this.channel = channel;
+        this.mapped = mapped;
+        this.index = index.entries;
+        this.indexOffset = index.offset;
+        this.appendOffset = appendOffset;
+        this.fullEntries = index.fullEntries;
+        this.chainEntries = index.fullEntries < 0 ? 0 : index.entries.size() - index.fullEntries;
+        this.flushedEntries = index.entries.size();
+    }
+
+    // Открывает архив для чтения и добавления; если файла нет, создаёт пустой архив
+    public static TabulatedFunctionArchive open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() == 0) {
+                Index empty = new Index();
+                empty.offset = HEADER_SIZE;
+                empty.fullEntries = -1;
+                TabulatedFunctionArchive archive = new TabulatedFunctionArchive(path, channel, null, empty, HEADER_SIZE);
+                archive.flush();
+                return archive;
+            }
+
+            // Хвост после оглавления (например, записи, добавленные до сбоя) просто не используется
+            return new TabulatedFunctionArchive(path, channel, null, readIndex(channel), channel.size());
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // Открывает архив только для чтения, отображая весь файл в память;
+    // функции читаются без системных вызовов
+    public static TabulatedFunctionArchive openMapped(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Архив слишком велик для отображения в память: " + channel.size() + " байт");
+            }
+
+            Index index = readIndex(channel);
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new TabulatedFunctionArchive(path, channel, mapped, index, channel.size());
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // Читает заголовок и цепочку участков оглавления от последнего к полному
+    private static Index readIndex(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                throw new IOException("Файл слишком короткий для заголовка архива");
+            }
+        }
+        if (header.getInt(0) != MAGIC) {
+            throw new IOException("Неверная сигнатура архива табулированных функций");
+        }
+        int version = header.getInt(4);
+        if (version < FIRST_VERSION || version > VERSION) {
+            throw new IOException("Неподдерживаемая версия формата: " + version);
+        }
+
+        Index index = new Index();
+        index.offset = header.getLong(8);
+        if (index.offset < HEADER_SIZE || index.offset > channel.size()) {
+            throw new IOException("Неверное смещение оглавления: " + index.offset);
+        }
+
+        // Участки читаются от нового к старому, а имена собираются в порядке добавления
+        List<List<Map.Entry<String, Long>>> segments = new ArrayList<>();
+        long segmentOffset = index.offset;
+        while (true) {
+            channel.position(segmentOffset);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            int count = in.readInt();
+            long previous = version == FIRST_VERSION ? 0 : in.readLong();
+            if (count < 0 || previous != 0 && (previous < HEADER_SIZE || previous >= segmentOffset)) {
+                throw new IOException("Повреждённое оглавление архива по смещению " + segmentOffset);
+            }
+
+            List<Map.Entry<String, Long>> segment = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                long offset = in.readLong();
+                if (offset < HEADER_SIZE || offset >= segmentOffset) {
+                    throw new IOException("Неверное смещение функции " + name + ": " + offset);
+                }
+                segment.add(Map.entry(name, offset));
+            }
+            segments.add(segment);
+
+            if (previous == 0) {
+                index.fullEntries = version == FIRST_VERSION ? -1 : count;
+                break;
+            }
+            segmentOffset = previous;
+        }
+
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            for (Map.Entry<String, Long> entry : segments.get(i)) {
+                if (index.entries.put(entry.getKey(), entry.getValue()) != null) {
+                    throw new IOException("Имя " + entry.getKey() + " повторяется в оглавлении архива");
+                }
+            }
+        }
+        return index;
+    }
+
+    private void checkWritable() {
+        if (mapped != null) {
+            throw new UnsupportedOperationException("Архив открыт только для чтения");
+        }
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    public boolean contains(String name) {
+        return index.containsKey(name);
+    }
+
+    // Имена функций в порядке добавления
+    public Set<String> names() {
+        return Collections.unmodifiableSet(index.keySet());
+    }
+
+    // Добавляет функцию в конец архива
+    public void add(String name, TabulatedFunction function) throws IOException {
+        checkWritable();
+        if (index.containsKey(name)) {
+            throw new IllegalArgumentException("Функция с именем " + name + " уже есть в архиве");
+        }
+
+        channel.position(appendOffset);
+        BinaryTabulatedFunctionCodec.write(function, Channels.newOutputStream(channel));
+
+        index.put(name, appendOffset);
+        appendOffset = channel.position();
+    }
+
+    // Функция с данным именем или null, если её нет в архиве
+    public TabulatedFunction get(String name) throws IOException {
+        Long offset = index.get(name);
+        if (offset == null) {
+            return null;
+        }
+
+        double[][] coordinates;
+        if (mapped != null) {
+            coordinates = readMapped(offset);
+        } else {
+            channel.position(offset);
+            coordinates = BinaryTabulatedFunctionCodec.read(Channels.newInputStream(channel));
+        }
+        return TabulatedFunctions.createTabulatedFunction(null, coordinates[0], coordinates[1]);
+    }
+
+    private double[][] readMapped(long offset) throws IOException {
+        ByteBuffer record = mapped.duplicate();
+        record.position((int) offset);
+        int pointsCount = record.getInt();
+        if (pointsCount < 0 || (long) pointsCount * 2 * Double.BYTES > indexOffset - offset - Integer.BYTES) {
+            throw new IOException("Повреждённая запись архива по смещению " + offset);
+        }
+
+        double[] xs = new double[pointsCount];
+        double[] ys = new double[pointsCount];
+        DoubleBuffer doubles = record.asDoubleBuffer();
+        for (int i = 0; i < pointsCount; i++) {
+            xs[i] = doubles.get(2 * i);
+            ys[i] = doubles.get(2 * i + 1);
+        }
+        return new double[][] {xs, ys};
+    }
+
+    // Дописывает участок оглавления с новыми именами (или полное оглавление) в конец файла
+    // и переключает на него заголовок
+    public void flush() throws IOException {
+        // Новый пустой архив ещё не имеет оглавления: оно пишется сразу после заголовка
+        if (flushedEntries == index.size() && indexOffset < appendOffset) {
+            return;
+        }
+
+        int newEntries = index.size() - flushedEntries;
+        boolean full = fullEntries < 0 || chainEntries + newEntries >= fullEntries;
+
+        long newIndexOffset = appendOffset;
+        channel.position(newIndexOffset);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+        writeIndex(out, index, full ? 0 : flushedEntries, full ? 0 : indexOffset);
+        out.flush();
+        long newAppendOffset = channel.position();
+        // Оглавление и записи должны попасть на диск раньше заголовка, который на них укажет
+        channel.force(false);
+        writeHeader(channel, newIndexOffset);
+
+        indexOffset = newIndexOffset;
+        appendOffset = newAppendOffset;
+        flushedEntries = index.size();
+        if (full) {
+            fullEntries = index.size();
+            chainEntries = 0;
+        } else {
+            chainEntries += newEntries;
+        }
+    }
+
+    // Участок оглавления из имён, начиная с номера from, со ссылкой на предыдущий участок
+    private static void writeIndex(DataOutputStream out, Map<String, Long> index, int from, long previous)
+            throws IOException {
+        out.writeInt(index.size() - from);
+        out.writeLong(previous);
+        int number = 0;
+        for (Map.Entry<String, Long> entry : index.entrySet()) {
+            if (number++ >= from) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue());
+            }
+        }
+    }
+
+    private static void writeHeader(FileChannel channel, long indexOffset) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putLong(indexOffset).flip();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+        channel.force(false);
+    }
+
+    // Переписывает архив без неиспользуемых участков: только записи из оглавления и одно
+    // полное оглавление. Новый файл собирается рядом и заменяет старый атомарным переименованием,
+    // поэтому при сбое остаётся либо старый, либо новый архив
+    public void compact() throws IOException {
+        checkWritable();
+
+        Path temporary = path.resolveSibling(path.getFileName() + ".compact");
+        Map<String, Long> compacted = new LinkedHashMap<>();
+        long newIndexOffset;
+        try {
+            newIndexOffset = writeCompacted(temporary, compacted);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+
+        channel.close();
+        try {
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            // Если замена не удалась, продолжаем работать со старым файлом и прежним оглавлением
+            channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+
+        index = compacted;
+        indexOffset = newIndexOffset;
+        appendOffset = channel.size();
+        fullEntries = compacted.size();
+        chainEntries = 0;
+        flushedEntries = compacted.size();
+    }
+
+    // Копирует записи из оглавления подряд в новый файл и пишет за ними полное оглавление;
+    // возвращает его смещение
+    private long writeCompacted(Path temporary, Map<String, Long> compacted) throws IOException {
+        try (FileChannel target = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long position = HEADER_SIZE;
+            ByteBuffer count = ByteBuffer.allocate(Integer.BYTES);
+            for (Map.Entry<String, Long> entry : index.entrySet()) {
+                long offset = entry.getValue();
+                count.clear();
+                while (count.hasRemaining()) {
+                    if (channel.read(count, offset + count.position()) < 0) {
+                        throw new IOException("Повреждённая запись архива по смещению " + offset);
+                    }
+                }
+                long length = Integer.BYTES + (long) count.getInt(0) * 2 * Double.BYTES;
+                for (long copied = 0; copied < length; ) {
+                    target.position(position + copied);
+                    long transferred = channel.transferTo(offset + copied, length - copied, target);
+                    if (transferred <= 0) {
+                        throw new IOException("Повреждённая запись архива по смещению " + offset);
+                    }
+                    copied += transferred;
+                }
+                compacted.put(entry.getKey(), position);
+                position += length;
+            }
+
+            target.position(position);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(target)));
+            writeIndex(out, compacted, 0, 0);
+            out.flush();
+            target.force(false);
+            writeHeader(target, position);
+            return position;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (mapped == null) {
+                flush();
+            }
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -1,10 +1,20 @@
 package functions;
 
+import functions.meta.FunctionOptimizer;
+
 import java.io.*;
 import java.lang.reflect.Constructor;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.RecursiveAction;
 
 public final class TabulatedFunctions {
     private static TabulatedFunctionFactory factory = new ArrayTabulatedFunction.ArrayTabulatedFunctionFactory();
+    // Меньше этого количества точек tabulateParallel считает последовательно:
+    // накладные расходы на задачи больше выигрыша
+    static final int PARALLEL_THRESHOLD = 1 << 15;
     
     private TabulatedFunctions() {
         throw new AssertionError("Нельзя создавать объекты класса TabulatedFunctions");
@@ -73,6 +83,128 @@ public final class TabulatedFunctions {
     }
     
     public static TabulatedFunction tabulate(Function function, double leftX, double rightX, int pointsCount) {
+        checkTabulateArguments(function, leftX, rightX, pointsCount);
+        double[] values = tabulateValues(function, leftX, rightX, pointsCount);
+        
+        return createTabulatedFunction(leftX, rightX, values);
+    }
+    
+    // Параллельное табулирование: сетка делится между потоками общего пула fork/join.
+    // Каждая часть вычисляется пакетно прямо в массив values, поэтому результат
+    // побитово совпадает с tabulate. Функция должна допускать вычисление из нескольких потоков
+    public static TabulatedFunction tabulateParallel(Function function, double leftX, double rightX, int pointsCount) {
+        checkTabulateArguments(function, leftX, rightX, pointsCount);
+        double[] values;
+        if (pointsCount < PARALLEL_THRESHOLD) {
+            values = tabulateValues(function, leftX, rightX, pointsCount);
+        } else {
+            values = new double[pointsCount];
+            new TabulateTask(FunctionOptimizer.simplify(function), values, leftX, rightX, 0, pointsCount).invoke();
+        }
+        
+        return createTabulatedFunction(leftX, rightX, values);
+    }
+    
+    // Вычисляет значения на отрезке сетки [from, to), деля его пополам до размера PARALLEL_THRESHOLD / 2
+    private static final class TabulateTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        
+        private final Function function;
+        private final double[] values;
+        private final double leftX;
+        private final double rightX;
+        private final int from;
+        private final int to;
+        
+        TabulateTask(Function function, double[] values, double leftX, double rightX, int from, int to) {
+            this.function = function;
+            this.values = values;
+            this.leftX = leftX;
+            this.rightX = rightX;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD / 2) {
+                fillGrid(values, leftX, rightX, from, to);
+                function.getFunctionValues(values, values, from, to);
+                return;
+            }
+            
+            int middle = (from + to) >>> 1;
+            invokeAll(new TabulateTask(function, values, leftX, rightX, from, middle),
+                    new TabulateTask(function, values, leftX, rightX, middle, to));
+        }
+    }
+    
+    // Начальное число отрезков адаптивного табулирования и предельная глубина их деления
+    private static final int ADAPTIVE_INITIAL_SEGMENTS = 16;
+    private static final int ADAPTIVE_MAX_DEPTH = 20;
+    
+    // Адаптивное табулирование: отрезки делятся пополам, пока погрешность линейной интерполяции
+    // в точках 1/4, 1/2 и 3/4 отрезка больше tolerance. Точки сгущаются только там, где функция
+    // быстро меняется; результат создаётся фабрикой из массива FunctionPoint
+    public static TabulatedFunction tabulateAdaptive(Function function, double leftX, double rightX, double tolerance) {
+        checkTabulateArguments(function, leftX, rightX, 2);
+        if (!(tolerance > 0)) {
+            throw new IllegalArgumentException("Допустимая погрешность должна быть положительной");
+        }
+        
+        function = FunctionOptimizer.simplify(function);
+        ArrayList<FunctionPoint> points = new ArrayList<>();
+        double step = (rightX - leftX) / ADAPTIVE_INITIAL_SEGMENTS;
+        double a = leftX;
+        double fa = function.getFunctionValue(a);
+        for (int i = 1; i <= ADAPTIVE_INITIAL_SEGMENTS; i++) {
+            double b = i == ADAPTIVE_INITIAL_SEGMENTS ? rightX : leftX + i * step;
+            double fb = function.getFunctionValue(b);
+            double m = a + (b - a) / 2;
+            refineSegment(function, tolerance, points, a, fa, m, function.getFunctionValue(m), b, fb, 0);
+            a = b;
+            fa = fb;
+        }
+        points.add(new FunctionPoint(rightX, fa));
+        
+        return createTabulatedFunction(points.toArray(new FunctionPoint[0]));
+    }
+    
+    // Добавляет в points левые концы принятых отрезков из [a, b]; значение в середине m уже известно
+    private static void refineSegment(Function function, double tolerance, ArrayList<FunctionPoint> points,
+            double a, double fa, double m, double fm, double b, double fb, int depth) {
+        double q1 = a + (m - a) / 2;
+        double q3 = m + (b - m) / 2;
+        // Точки ближе EPSILON друг к другу в табулированной функции недопустимы
+        if (depth >= ADAPTIVE_MAX_DEPTH || q1 - a <= 1e-10 || b - q3 <= 1e-10) {
+            points.add(new FunctionPoint(a, fa));
+            return;
+        }
+        
+        double fq1 = function.getFunctionValue(q1);
+        double fq3 = function.getFunctionValue(q3);
+        if (isLinearEnough(a, fa, b, fb, m, fm, tolerance)
+                && isLinearEnough(a, fa, b, fb, q1, fq1, tolerance)
+                && isLinearEnough(a, fa, b, fb, q3, fq3, tolerance)) {
+            points.add(new FunctionPoint(a, fa));
+            return;
+        }
+        
+        refineSegment(function, tolerance, points, a, fa, q1, fq1, m, fm, depth + 1);
+        refineSegment(function, tolerance, points, m, fm, q3, fq3, b, fb, depth + 1);
+    }
+    
+    // Отклоняется ли значение fx от хорды [a, b] не больше чем на tolerance.
+    // Если значений нет ни в одной из трёх точек (NaN), уточнять нечего
+    private static boolean isLinearEnough(double a, double fa, double b, double fb, double x, double fx, double tolerance) {
+        if (Double.isNaN(fa) && Double.isNaN(fb) && Double.isNaN(fx)) {
+            return true;
+        }
+        double linear = fa + (fb - fa) * (x - a) / (b - a);
+        return Math.abs(fx - linear) <= tolerance;
+    }
+    
+    private static void checkTabulateArguments(Function function, double leftX, double rightX, int pointsCount) {
         if (leftX < function.getLeftDomainBorder()) {
             throw new IllegalArgumentException("Левая граница табулирования " + leftX + 
                 " выходит за левую границу области определения " + function.getLeftDomainBorder());
@@ -90,155 +222,153 @@ public final class TabulatedFunctions {
         if (leftX >= rightX) {
             throw new IllegalArgumentException("Левая граница должна быть меньше правой");
         }
+    }
+    
+    // Копия набора точек, упорядоченная по X; совпадающие с точностью EPSILON точки недопустимы
+    static FunctionPoint[] sortPointsByX(FunctionPoint[] points) throws InappropriateFunctionPointException {
+        FunctionPoint[] sorted = points.clone();
+        Arrays.sort(sorted, new Comparator<FunctionPoint>() {
+            @Override
+            public int compare(FunctionPoint a, FunctionPoint b) {
+                return Double.compare(a.getX(), b.getX());
+            }
+        });
         
-        double[] values = new double[pointsCount];
-        double step = (rightX - leftX) / (pointsCount - 1);
-        
-        for (int i = 0; i < pointsCount; i++) {
-            double x = leftX + i * step;
-            
-            if (i == pointsCount - 1) {
-                x = rightX;
+        for (int i = 1; i < sorted.length; i++) {
+            if (Math.abs(sorted[i].getX() - sorted[i - 1].getX()) < 1e-10) {
+                throw new InappropriateFunctionPointException("Точка с X=" + sorted[i].getX() + " встречается в наборе дважды");
             }
-            
-            values[i] = function.getFunctionValue(x);
         }
         
-        return createTabulatedFunction(leftX, rightX, values);
+        return sorted;
     }
     
-    // Версия с рефлексией
-    public static TabulatedFunction tabulate(Class<?> functionClass, 
-            Function function, double leftX, double rightX, int pointsCount) {
+    // Значения функции на равномерной сетке; дерево функции упрощается точными правилами,
+    // значения вычисляются одним пакетным вызовом
+    private static double[] tabulateValues(Function function, double leftX, double rightX, int pointsCount) {
         double[] values = new double[pointsCount];
+        fillGrid(values, leftX, rightX, 0, pointsCount);
+        FunctionOptimizer.simplify(function).getFunctionValues(values, values, 0, pointsCount);
+        return values;
+    }
+    
+    // Узлы равномерной сетки с индексами [from, to); последний узел — ровно rightX
+    private static void fillGrid(double[] values, double leftX, double rightX, int from, int to) {
+        int pointsCount = values.length;
         double step = (rightX - leftX) / (pointsCount - 1);
-        
-        for (int i = 0; i < pointsCount; i++) {
-            double x = leftX + i * step;
-            
-            if (i == pointsCount - 1) {
-                x = rightX;
-            }
-            
-            values[i] = function.getFunctionValue(x);
+        for (int i = from; i < to; i++) {
+            values[i] = leftX + i * step;
         }
+        if (to == pointsCount) {
+            values[pointsCount - 1] = rightX;
+        }
+    }
+    
+    // Версия с рефлексией
+    public static TabulatedFunction tabulate(Class<?> functionClass, 
+            Function function, double leftX, double rightX, int pointsCount) {
+        double[] values = tabulateValues(function, leftX, rightX, pointsCount);
         
         return createTabulatedFunction(functionClass, leftX, rightX, values);
     }
 
+    // Двоичный формат: количество точек, затем пары (x, y); данные передаются блоками
     public static void outputTabulatedFunction(TabulatedFunction function, OutputStream out) throws IOException {
-        DataOutputStream dataOut = new DataOutputStream(out);
-        
-        dataOut.writeInt(function.getPointsCount());
-        
-        for (int i = 0; i < function.getPointsCount(); i++) {
-            FunctionPoint point = function.getPoint(i);
-            dataOut.writeDouble(point.getX());
-            dataOut.writeDouble(point.getY());
-        }
-        
-        dataOut.flush();
+        BinaryTabulatedFunctionCodec.write(function, out);
     }
 
     public static TabulatedFunction inputTabulatedFunction(InputStream in) throws IOException {
-        DataInputStream dataIn = new DataInputStream(in);
-        
-        int pointsCount = dataIn.readInt();
-        
-        FunctionPoint[] points = new FunctionPoint[pointsCount];
-        for (int i = 0; i < pointsCount; i++) {
-            double x = dataIn.readDouble();
-            double y = dataIn.readDouble();
-            points[i] = new FunctionPoint(x, y);
+        double[][] coordinates = BinaryTabulatedFunctionCodec.read(in);
+        return createTabulatedFunction(null, coordinates[0], coordinates[1]);
+    }
+
+    // Сжатый двоичный формат: равномерная сетка хранится границами, неравномерная —
+    // вторыми разностями, значения — XOR с предыдущим значением и сериями повторов
+    public static void outputCompressedTabulatedFunction(TabulatedFunction function, OutputStream out) throws IOException {
+        CompressedTabulatedFunctionCodec.write(function, out);
+    }
+
+    public static TabulatedFunction inputCompressedTabulatedFunction(InputStream in) throws IOException {
+        double[][] coordinates = CompressedTabulatedFunctionCodec.read(in);
+        return createTabulatedFunction(null, coordinates[0], coordinates[1]);
+    }
+
+    // Создаёт функцию по прочитанным координатам фабрикой (functionClass == null) или рефлексией.
+    // Если X в точности совпадают с равномерной сеткой, которую строит конструктор по границам,
+    // используется он, и массив FunctionPoint не создаётся
+    static TabulatedFunction createTabulatedFunction(Class<?> functionClass, double[] xs, double[] ys) {
+        if (isExactUniformGrid(xs)) {
+            double leftX = xs[0];
+            double rightX = xs[xs.length - 1];
+            return functionClass == null
+                    ? createTabulatedFunction(leftX, rightX, ys)
+                    : createTabulatedFunction(functionClass, leftX, rightX, ys);
         }
-        
-        return createTabulatedFunction(points);
+
+        FunctionPoint[] points = new FunctionPoint[xs.length];
+        for (int i = 0; i < xs.length; i++) {
+            points[i] = new FunctionPoint(xs[i], ys[i]);
+        }
+        return functionClass == null
+                ? createTabulatedFunction(points)
+                : createTabulatedFunction(functionClass, points);
     }
 
-    public static void writeTabulatedFunction(TabulatedFunction function, Writer out) throws IOException {
-        PrintWriter writer = new PrintWriter(out);
-        
-        writer.print(function.getPointsCount());
-        writer.print(" ");
-        
-        for (int i = 0; i < function.getPointsCount(); i++) {
-            FunctionPoint point = function.getPoint(i);
-            double x = point.getX();
-            double y = point.getY();
-            
-            if (Math.abs(y) < 1e-10) {
-                y = 0.0;
-            }
-            
-            writer.print(x);
-            writer.print(" ");
-            writer.print(y);
-            if (i < function.getPointsCount() - 1) {
-                writer.print(" ");
+    private static boolean isExactUniformGrid(double[] xs) {
+        int pointsCount = xs.length;
+        if (pointsCount < 2 || !(xs[0] < xs[pointsCount - 1])) {
+            return false;
+        }
+
+        double leftX = xs[0];
+        double step = (xs[pointsCount - 1] - leftX) / (pointsCount - 1);
+        for (int i = 1; i < pointsCount; i++) {
+            if (xs[i] != leftX + i * step) {
+                return false;
             }
         }
-        
-        writer.flush();
+        return true;
+    }
+
+    // Записывает функцию в файл формата, пригодного для отображения в память
+    public static void writeMappedTabulatedFunction(TabulatedFunction function, Path path) throws IOException {
+        MappedTabulatedFunction.write(function, path);
+    }
+
+    // Отображает файл в память без копирования точек; результат доступен только для чтения.
+    // Данные при открытии не читаются; полную проверку файла выполняет verify() результата
+    public static MappedTabulatedFunction mapTabulatedFunction(Path path) throws IOException {
+        return MappedTabulatedFunction.map(path);
+    }
+
+    // Текстовый формат: количество точек, затем пары x y через пробел.
+    // Значения записываются и читаются без потери точности
+    public static void writeTabulatedFunction(TabulatedFunction function, Writer out) throws IOException {
+        TextTabulatedFunctionCodec.write(function, out, false);
     }
     
     public static TabulatedFunction readTabulatedFunction(Reader in) throws IOException {
-        StreamTokenizer tokenizer = new StreamTokenizer(in);
-        
-        tokenizer.nextToken();
-        int pointsCount = (int) tokenizer.nval;
-        
-        FunctionPoint[] points = new FunctionPoint[pointsCount];
-        for (int i = 0; i < pointsCount; i++) {
-            tokenizer.nextToken();
-            double x = tokenizer.nval;
-            tokenizer.nextToken();
-            double y = tokenizer.nval;
-            
-            if (Math.abs(y) < 1e-10) {
-                y = 0.0;
-            }
-            
-            points[i] = new FunctionPoint(x, y);
-        }
-        
-        return createTabulatedFunction(points);
+        double[][] coordinates = TextTabulatedFunctionCodec.read(in, false);
+        return createTabulatedFunction(null, coordinates[0], coordinates[1]);
+    }
+
+    // Формат CSV: заголовок "x,y", затем по одной точке в строке
+    public static void writeTabulatedFunctionCsv(TabulatedFunction function, Writer out) throws IOException {
+        TextTabulatedFunctionCodec.write(function, out, true);
+    }
+
+    public static TabulatedFunction readTabulatedFunctionCsv(Reader in) throws IOException {
+        double[][] coordinates = TextTabulatedFunctionCodec.read(in, true);
+        return createTabulatedFunction(null, coordinates[0], coordinates[1]);
     }
 
     public static TabulatedFunction inputTabulatedFunction(InputStream in, Class<? extends TabulatedFunction> clazz) throws IOException {
-        DataInputStream dataIn = new DataInputStream(in);
-        
-        int pointsCount = dataIn.readInt();
-        
-        FunctionPoint[] points = new FunctionPoint[pointsCount];
-        for (int i = 0; i < pointsCount; i++) {
-            double x = dataIn.readDouble();
-            double y = dataIn.readDouble();
-            points[i] = new FunctionPoint(x, y);
-        }
-        
-        return createTabulatedFunction(clazz, points);
+        double[][] coordinates = BinaryTabulatedFunctionCodec.read(in);
+        return createTabulatedFunction(clazz, coordinates[0], coordinates[1]);
     }
 
     public static TabulatedFunction readTabulatedFunction(Reader in, Class<? extends TabulatedFunction> clazz) throws IOException {
-        StreamTokenizer tokenizer = new StreamTokenizer(in);
-        
-        tokenizer.nextToken();
-        int pointsCount = (int) tokenizer.nval;
-        
-        FunctionPoint[] points = new FunctionPoint[pointsCount];
-        for (int i = 0; i < pointsCount; i++) {
-            tokenizer.nextToken();
-            double x = tokenizer.nval;
-            tokenizer.nextToken();
-            double y = tokenizer.nval;
-            
-            if (Math.abs(y) < 1e-10) {
-                y = 0.0;
-            }
-            
-            points[i] = new FunctionPoint(x, y);
-        }
-        
-        return createTabulatedFunction(clazz, points);
+        double[][] coordinates = TextTabulatedFunctionCodec.read(in, false);
+        return createTabulatedFunction(clazz, coordinates[0], coordinates[1]);
     }
 }
\ No newline at end of file
@@ -0,0 +1,85 @@
+package functions;
+
+import java.nio.DoubleBuffer;
+
+// Поиск отрезка и интерполяция с теми же правилами, что в ArrayTabulatedFunction:
+// X сравниваются с точностью EPSILON, на равномерной сетке отрезок находится за O(1).
+// Общие для табулированных функций, хранящих точки в буферах DoubleBuffer
+// (DirectTabulatedFunction и MappedTabulatedFunction); буферы читаются абсолютным get(i).
+// Сравнения и интерполяция по двум точкам используются и в ChunkedTabulatedFunction
+final class TabulatedSearch {
+    static final double EPSILON = 1e-10;
+
+    private TabulatedSearch() {
+    }
+
+    static boolean equals(double a, double b) {
+        return Math.abs(a - b) < EPSILON;
+    }
+
+    static boolean lessOrEqual(double a, double b) {
+        return a < b || equals(a, b);
+    }
+
+    // Индекс первой точки, у которой X строго больше x (двоичный поиск)
+    static int upperBound(DoubleBuffer xs, int pointsCount, double x) {
+        int low = 0;
+        int high = pointsCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (xs.get(mid) <= x) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Индекс последней точки с X <= x, но не больше pointsCount - 2.
+    // step — шаг равномерной сетки или 0; hint — предполагаемый ответ или -1
+    static int locateSegment(DoubleBuffer xs, int pointsCount, double step, double x, int hint) {
+        int last = pointsCount - 2;
+        if (hint >= 0 && xs.get(hint) <= x && (hint == last || x < xs.get(hint + 1))) {
+            return hint;
+        }
+
+        int index;
+        if (step > 0) {
+            index = Math.min(Math.max((int) ((x - xs.get(0)) / step), 0), last);
+            while (index < last && xs.get(index + 1) <= x) {
+                index++;
+            }
+            while (index > 0 && xs.get(index) > x) {
+                index--;
+            }
+        } else {
+            index = Math.min(Math.max(upperBound(xs, pointsCount, x) - 1, 0), last);
+        }
+        return index;
+    }
+
+    // Сдвигает индекс влево, пока x попадает в предыдущий отрезок с точностью EPSILON
+    static int adjustSegmentIndex(DoubleBuffer xs, int index, double x) {
+        while (index > 0 && lessOrEqual(x, xs.get(index))) {
+            index--;
+        }
+        return index;
+    }
+
+    // Значение на отрезке [x1, x2]; вблизи концов — значение в конце
+    static double interpolate(double x, double x1, double y1, double x2, double y2) {
+        if (equals(x, x1)) {
+            return y1;
+        }
+        if (equals(x, x2)) {
+            return y2;
+        }
+
+        return y1 + (y2 - y1) * (x - x1) / (x2 - x1);
+    }
+
+    static double interpolate(DoubleBuffer xs, DoubleBuffer ys, int i, double x) {
+        return interpolate(x, xs.get(i), ys.get(i), xs.get(i + 1), ys.get(i + 1));
+    }
+}
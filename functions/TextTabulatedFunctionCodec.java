@@ -0,0 +1,399 @@
+package functions;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.util.Arrays;
+
+// Потоковое чтение и запись текстового представления табулированной функции.
+// Обычный формат: количество точек, затем пары x y через пробел.
+// Формат CSV: строка заголовка "x,y", затем по одной точке "x,y" в строке.
+// Числа записываются Double.toString и читаются собственным разборщиком,
+// поэтому значения восстанавливаются в точности
+final class TextTabulatedFunctionCodec {
+    private static final int BUFFER_SIZE = 8192;
+
+    // Степени десяти, точно представимые в double
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+        1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private TextTabulatedFunctionCodec() {
+        throw new AssertionError("Нельзя создавать объекты класса TextTabulatedFunctionCodec");
+    }
+
+    static void write(TabulatedFunction function, Writer out, boolean csv) throws IOException {
+        int pointsCount = function.getPointsCount();
+        StringBuilder sb = new StringBuilder(BUFFER_SIZE + 64);
+        char[] chars = new char[BUFFER_SIZE + 64];
+
+        if (csv) {
+            sb.append("x,y\n");
+        } else {
+            sb.append(pointsCount);
+        }
+
+        for (int i = 0; i < pointsCount; i++) {
+            if (csv) {
+                sb.append(function.getPointX(i)).append(',').append(function.getPointY(i)).append('\n');
+            } else {
+                sb.append(' ').append(function.getPointX(i)).append(' ').append(function.getPointY(i));
+            }
+
+            if (sb.length() >= BUFFER_SIZE) {
+                chars = drain(sb, chars, out);
+            }
+        }
+        drain(sb, chars, out);
+
+        out.flush();
+    }
+
+    private static char[] drain(StringBuilder sb, char[] chars, Writer out) throws IOException {
+        int length = sb.length();
+        if (length > chars.length) {
+            chars = new char[length];
+        }
+        sb.getChars(0, length, chars, 0);
+        out.write(chars, 0, length);
+        sb.setLength(0);
+        return chars;
+    }
+
+    // Возвращает массивы {xs, ys}
+    static double[][] read(Reader in, boolean csv) throws IOException {
+        Tokenizer tokenizer = new Tokenizer(in, csv);
+        double[] xs;
+        double[] ys;
+        int pointsCount;
+
+        if (csv) {
+            tokenizer.skipHeader();
+            xs = new double[16];
+            ys = new double[16];
+            pointsCount = 0;
+            while (tokenizer.hasNext()) {
+                if (pointsCount == xs.length) {
+                    xs = Arrays.copyOf(xs, pointsCount * 2);
+                    ys = Arrays.copyOf(ys, pointsCount * 2);
+                }
+                xs[pointsCount] = tokenizer.nextDouble();
+                ys[pointsCount] = tokenizer.nextDouble();
+                pointsCount++;
+            }
+            xs = Arrays.copyOf(xs, pointsCount);
+            ys = Arrays.copyOf(ys, pointsCount);
+        } else {
+            double count = tokenizer.nextDouble();
+            pointsCount = (int) count;
+            if (pointsCount != count || pointsCount < 0) {
+                throw new IOException("Неверное количество точек: " + count);
+            }
+            xs = new double[pointsCount];
+            ys = new double[pointsCount];
+            for (int i = 0; i < pointsCount; i++) {
+                xs[i] = tokenizer.nextDouble();
+                ys[i] = tokenizer.nextDouble();
+            }
+        }
+
+        tokenizer.finish();
+        return new double[][] {xs, ys};
+    }
+
+    // Разбор числа из символов s[0..length). Если в записи не больше 15 значащих цифр,
+    // а десятичный порядок не превышает 22, результат вычисляется одним точным
+    // умножением или делением; до 18 цифр — через 128-битное приближение степени
+    // десяти; остальные случаи передаются Double.parseDouble
+    static double parseDouble(char[] s, int length) {
+        int i = 0;
+        boolean negative = false;
+        if (length > 0 && (s[0] == '-' || s[0] == '+')) {
+            negative = s[0] == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean seenDigit = false;
+        boolean exact = true;
+
+        for (; i < length && s[i] >= '0' && s[i] <= '9'; i++) {
+            seenDigit = true;
+            if (mantissa != 0 || s[i] != '0') {
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + (s[i] - '0');
+                    digits++;
+                } else {
+                    exponent++;
+                    exact = false;
+                }
+            }
+        }
+
+        if (i < length && s[i] == '.') {
+            i++;
+            for (; i < length && s[i] >= '0' && s[i] <= '9'; i++) {
+                seenDigit = true;
+                if (mantissa != 0 || s[i] != '0') {
+                    if (digits < 18) {
+                        mantissa = mantissa * 10 + (s[i] - '0');
+                        digits++;
+                        exponent--;
+                    } else {
+                        exact = false;
+                    }
+                } else {
+                    exponent--;
+                }
+            }
+        }
+
+        if (seenDigit && i < length && (s[i] == 'e' || s[i] == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < length && (s[i] == '-' || s[i] == '+')) {
+                negativeExponent = s[i] == '-';
+                i++;
+            }
+
+            int value = 0;
+            boolean seenExponentDigit = false;
+            for (; i < length && s[i] >= '0' && s[i] <= '9'; i++) {
+                seenExponentDigit = true;
+                if (value < 100000) {
+                    value = value * 10 + (s[i] - '0');
+                }
+            }
+            if (!seenExponentDigit) {
+                seenDigit = false;
+            }
+            exponent += negativeExponent ? -value : value;
+        }
+
+        if (seenDigit && i == length && exact) {
+            if (mantissa == 0) {
+                return negative ? -0.0 : 0.0;
+            }
+            if (digits <= 15 && exponent >= -22 && exponent <= 22) {
+                double value = mantissa;
+                value = exponent < 0 ? value / POWERS_OF_TEN[-exponent] : value * POWERS_OF_TEN[exponent];
+                return negative ? -value : value;
+            }
+
+            long bits = multiplyByPowerOfTen(mantissa, exponent);
+            if (bits >= 0) {
+                return Double.longBitsToDouble(negative ? bits | Long.MIN_VALUE : bits);
+            }
+        }
+
+        // Спорные случаи округления, субнормальные числа, NaN и Infinity
+        return Double.parseDouble(new String(s, 0, length));
+    }
+
+    // Биты double, ближайшего к mantissa * 10^exponent (алгоритм Эйзеля — Лемира),
+    // или -1, если 128-битного приближения степени пятёрки недостаточно для
+    // однозначного округления или результат не является нормализованным числом
+    private static long multiplyByPowerOfTen(long mantissa, int exponent) {
+        if (exponent < PowersOfFive.MIN_EXPONENT || exponent > PowersOfFive.MAX_EXPONENT) {
+            return -1;
+        }
+
+        int index = exponent - PowersOfFive.MIN_EXPONENT;
+        long factorHigh = PowersOfFive.HIGH[index];
+        long factorLow = PowersOfFive.LOW[index];
+
+        int leadingZeros = Long.numberOfLeadingZeros(mantissa);
+        long normalized = mantissa << leadingZeros;
+
+        // 192-битное произведение high:middle:low; множитель занижен меньше чем на единицу,
+        // поэтому точное значение лежит в [high:middle:low, high:middle:low + 2^64)
+        long high = unsignedMultiplyHigh(normalized, factorHigh);
+        long middle = normalized * factorHigh;
+        long carryHigh = unsignedMultiplyHigh(normalized, factorLow);
+        long low = normalized * factorLow;
+        long sum = middle + carryHigh;
+        if (Long.compareUnsigned(sum, middle) < 0) {
+            high++;
+        }
+        middle = sum;
+
+        // Старший бит произведения находится в 191-м или 190-м разряде
+        int topBit = high < 0 ? 191 : 190;
+        int restBits = topBit - 181;
+        long restMask = (1L << restBits) - 1;
+        long rest = high & restMask;
+        long significand = high >>> restBits;
+
+        if ((significand & 1) == 1) {
+            if (rest == 0 && middle == 0 && low == 0) {
+                return -1;
+            }
+        } else if (rest == restMask && middle == -1L) {
+            return -1;
+        }
+
+        significand = (significand + 1) >>> 1;
+        int binaryExponent = topBit - (leadingZeros + PowersOfFive.SHIFT[index] - exponent);
+        if (significand == 1L << 53) {
+            significand >>>= 1;
+            binaryExponent++;
+        }
+
+        int biasedExponent = binaryExponent + 1023;
+        if (biasedExponent < 1 || biasedExponent > 2046) {
+            return -1;
+        }
+        return ((long) biasedExponent << 52) | (significand & ((1L << 52) - 1));
+    }
+
+    private static long unsignedMultiplyHigh(long a, long b) {
+        return Math.multiplyHigh(a, b) + ((a >> 63) & b) + ((b >> 63) & a);
+    }
+
+    // 128-битные приближения снизу величин 5^q * 2^SHIFT[q] со старшим единичным битом.
+    // Таблица строится при первом обращении
+    private static final class PowersOfFive {
+        static final int MIN_EXPONENT = -325;
+        static final int MAX_EXPONENT = 308;
+        static final long[] HIGH = new long[MAX_EXPONENT - MIN_EXPONENT + 1];
+        static final long[] LOW = new long[MAX_EXPONENT - MIN_EXPONENT + 1];
+        static final int[] SHIFT = new int[MAX_EXPONENT - MIN_EXPONENT + 1];
+
+        static {
+            BigInteger five = BigInteger.valueOf(5);
+            for (int q = MIN_EXPONENT; q <= MAX_EXPONENT; q++) {
+                BigInteger value;
+                int shift;
+                if (q >= 0) {
+                    BigInteger power = five.pow(q);
+                    shift = 128 - power.bitLength();
+                    value = shift >= 0 ? power.shiftLeft(shift) : power.shiftRight(-shift);
+                } else {
+                    BigInteger power = five.pow(-q);
+                    shift = power.bitLength() + 127;
+                    value = BigInteger.ONE.shiftLeft(shift).divide(power);
+                }
+                HIGH[q - MIN_EXPONENT] = value.shiftRight(64).longValue();
+                LOW[q - MIN_EXPONENT] = value.longValue();
+                SHIFT[q - MIN_EXPONENT] = shift;
+            }
+        }
+    }
+
+    // Делит поток на числа; разделители — пробельные символы, а в CSV ещё и запятые.
+    // Поток читается блоками; если он поддерживает mark/reset, после чтения
+    // в нём остаются непрочитанными все символы, следующие за функцией
+    private static final class Tokenizer {
+        private final Reader in;
+        private final boolean csv;
+        private final boolean markSupported;
+        private final char[] buffer = new char[BUFFER_SIZE];
+        private int position;
+        private int limit;
+        private char[] token = new char[32];
+
+        Tokenizer(Reader in, boolean csv) {
+            this.in = in;
+            this.csv = csv;
+            this.markSupported = in.markSupported();
+        }
+
+        private boolean fill() throws IOException {
+            if (markSupported) {
+                in.mark(BUFFER_SIZE);
+            }
+            int read = in.read(buffer, 0, BUFFER_SIZE);
+            position = 0;
+            limit = Math.max(read, 0);
+            return read > 0;
+        }
+
+        private boolean isSeparator(char c) {
+            return c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == '\f' || (csv && c == ',');
+        }
+
+        private boolean skipSeparators() throws IOException {
+            while (true) {
+                while (position < limit) {
+                    if (!isSeparator(buffer[position])) {
+                        return true;
+                    }
+                    position++;
+                }
+                if (!fill()) {
+                    return false;
+                }
+            }
+        }
+
+        boolean hasNext() throws IOException {
+            return skipSeparators();
+        }
+
+        // Пропускает первую строку CSV, если она не начинается с числа
+        void skipHeader() throws IOException {
+            if (!skipSeparators()) {
+                return;
+            }
+            char c = buffer[position];
+            if (!Character.isLetter(c) || c == 'N' || c == 'I') {
+                return;
+            }
+            while (true) {
+                while (position < limit) {
+                    if (buffer[position++] == '\n') {
+                        return;
+                    }
+                }
+                if (!fill()) {
+                    return;
+                }
+            }
+        }
+
+        double nextDouble() throws IOException {
+            if (!skipSeparators()) {
+                throw new EOFException("Неожиданный конец потока");
+            }
+
+            int length = 0;
+            while (true) {
+                while (position < limit && !isSeparator(buffer[position])) {
+                    if (length == token.length) {
+                        token = Arrays.copyOf(token, length * 2);
+                    }
+                    token[length++] = buffer[position++];
+                }
+                if (position < limit || !fill()) {
+                    break;
+                }
+            }
+
+            try {
+                return parseDouble(token, length);
+            } catch (NumberFormatException e) {
+                throw new IOException("Неверная запись числа: " + new String(token, 0, length), e);
+            }
+        }
+
+        // Возвращает в поток символы, прочитанные в буфер, но не использованные
+        void finish() throws IOException {
+            if (markSupported && limit > 0) {
+                in.reset();
+                long skip = position;
+                while (skip > 0) {
+                    long skipped = in.skip(skip);
+                    if (skipped <= 0) {
+                        break;
+                    }
+                    skip -= skipped;
+                }
+            }
+        }
+    }
+}
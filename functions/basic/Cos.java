@@ -4,4 +4,11 @@ public class Cos extends TrigonometricFunction {
     public double getFunctionValue(double x) {
         return Math.cos(x);
     }
+
+    @Override
+    public void getFunctionValues(double[] arguments, double[] values, int from, int to) {
+        for (int i = from; i < to; i++) {
+            values[i] = Math.cos(arguments[i]);
+        }
+    }
 }
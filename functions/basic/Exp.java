@@ -14,4 +14,11 @@ public class Exp implements Function {
     public double getFunctionValue(double x) {
         return Math.exp(x);
     }
+
+    @Override
+    public void getFunctionValues(double[] arguments, double[] values, int from, int to) {
+        for (int i = from; i < to; i++) {
+            values[i] = Math.exp(arguments[i]);
+        }
+    }
 }
@@ -11,6 +11,10 @@ public class Log implements Function {
         }
         this.base = base;
     }
+
+    public double getBase() {
+        return base;
+    }
     
     public double getLeftDomainBorder() {
         return 0; // Логарифм определен для x > 0
@@ -39,4 +43,21 @@ public class Log implements Function {
         // Обычный случай
         return Math.log(x) / Math.log(base);
     }
-}
\ No newline at end of file
+
+    @Override
+    public void getFunctionValues(double[] arguments, double[] values, int from, int to) {
+        double logBase = Math.log(base);
+        for (int i = from; i < to; i++) {
+            double x = arguments[i];
+            if (x < -1e-10) {
+                values[i] = Double.NaN;
+            } else if (Math.abs(x) < 1e-10) {
+                values[i] = Double.NEGATIVE_INFINITY;
+            } else if (Math.abs(x - 1.0) < 1e-10) {
+                values[i] = 0.0;
+            } else {
+                values[i] = Math.log(x) / logBase;
+            }
+        }
+    }
+}
@@ -4,4 +4,11 @@ public class Sin extends TrigonometricFunction {
     public double getFunctionValue(double x) {
         return Math.sin(x);
     }
+
+    @Override
+    public void getFunctionValues(double[] arguments, double[] values, int from, int to) {
+        for (int i = from; i < to; i++) {
+            values[i] = Math.sin(arguments[i]);
+        }
+    }
 }
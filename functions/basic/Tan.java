@@ -4,4 +4,11 @@ public class Tan extends TrigonometricFunction {
     public double getFunctionValue(double x) {
         return Math.tan(x);
     }
+
+    @Override
+    public void getFunctionValues(double[] arguments, double[] values, int from, int to) {
+        for (int i = from; i < to; i++) {
+            values[i] = Math.tan(arguments[i]);
+        }
+    }
 }
@@ -10,6 +10,14 @@ public class Composition implements Function {
         this.f1 = f1;
         this.f2 = f2;
     }
+
+    public Function getFirstFunction() {
+        return f1;
+    }
+
+    public Function getSecondFunction() {
+        return f2;
+    }
     
     public double getLeftDomainBorder() {
         return f1.getLeftDomainBorder();
@@ -26,4 +34,15 @@ public class Composition implements Function {
         double intermediate = f1.getFunctionValue(x);
         return f2.getFunctionValue(intermediate);
     }
+
+    @Override
+    public void getFunctionValues(double[] arguments, double[] values, int from, int to) {
+        if (!Domains.contains(this, arguments, from, to)) {
+            Function.super.getFunctionValues(arguments, values, from, to);
+            return;
+        }
+
+        f1.getFunctionValues(arguments, values, from, to);
+        f2.getFunctionValues(values, values, from, to);
+    }
 }
@@ -0,0 +1,24 @@
+package functions.meta;
+
+import functions.Function;
+
+// Общая проверка области определения для пакетного вычисления мета-функций
+final class Domains {
+    // Размер части пакета, на которую Sum и Mult выделяют вспомогательный буфер
+    static final int CHUNK = 256;
+
+    private Domains() {
+    }
+
+    // Лежат ли все arguments[from..to) в области определения функции; границы читаются один раз
+    static boolean contains(Function function, double[] arguments, int from, int to) {
+        double left = function.getLeftDomainBorder();
+        double right = function.getRightDomainBorder();
+        for (int i = from; i < to; i++) {
+            if (arguments[i] < left || arguments[i] > right) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
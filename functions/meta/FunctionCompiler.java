@@ -0,0 +1,515 @@
+package functions.meta;
+
+import functions.Function;
+import functions.basic.Cos;
+import functions.basic.Exp;
+import functions.basic.Log;
+import functions.basic.Sin;
+import functions.basic.Tan;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.net.URI;
+import java.nio.file.Paths;
+import java.security.CodeSource;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+// Компилятор дерева функций functions.meta в один скрытый класс, реализующий Function.
+// Узлы известных классов (Shift, Scale, Power, Sum, Mult, Composition, Exp, Log, Sin, Cos, Tan)
+// встраиваются в один метод getFunctionValue: виртуальных вызовов между уровнями нет. Остальные
+// функции (например, табулированные) остаются листьями и вызываются через интерфейс, их границы
+// читаются при каждом вызове.
+// Проверка области определения корня выполняется один раз в начале метода. Вложенные проверки
+// того же аргумента, которые следуют из уже выполненных, не генерируются; остаются только
+// проверки аргументов, изменённых Shift, Scale или Composition, и границ листьев.
+// Параметры узлов и границы областей хранятся в полях класса, а не в тексте, поэтому исходный код
+// зависит только от формы дерева. Скомпилированные классы кэшируются по этому тексту: javac
+// запускается один раз на форму, а деревья той же формы с другими параметрами получают новый
+// экземпляр готового класса. В кэше не больше CACHE_SIZE классов, вытесняется давно не использованный.
+// Значения совпадают с вычислением исходного дерева, включая NaN вне областей определения.
+// Исходное дерево не должно изменяться после компиляции.
+// Если компилятор Java недоступен (среда без модуля jdk.compiler), дерево слишком велико
+// или слишком глубоко, возвращается исходная функция
+public final class FunctionCompiler {
+    // Предел числа встраиваемых узлов: общие поддеревья встраиваются повторно
+    static final int MAX_NODES = 2000;
+    // Предел вложенности: генератор, javac и рекурсивные методы самих мета-функций
+    // обходят дерево рекурсивно и на глубоких цепочках переполняют стек
+    static final int MAX_DEPTH = 100;
+
+    // Предел числа скомпилированных классов в кэше
+    static final int CACHE_SIZE = 256;
+
+    private static final String CLASS_NAME = "CompiledFunction";
+
+    // Конструкторы скомпилированных классов по их исходному коду, в порядке использования
+    private static final Map<String, MethodHandle> CACHE = new LinkedHashMap<String, MethodHandle>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, MethodHandle> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    // Листья, вызываемые через интерфейс
+    private final List<Function> leaves = new ArrayList<>();
+    // Параметры узлов и границы областей, по одному полю на каждое вхождение
+    private final List<Double> constants = new ArrayList<>();
+    private final Map<Function, Boolean> known = new IdentityHashMap<>();
+    // Проверки областей, в пределах которых генерируется текущий код
+    private final ArrayDeque<Check> checks = new ArrayDeque<>();
+    private int variables;
+    private int nodes;
+
+    // Переменная variable уже проверена по области определения узла domain;
+    // для постоянных границ они сохранены в left и right, иначе там NaN
+    private static final class Check {
+        final String variable;
+        final Function domain;
+        final double left;
+        final double right;
+
+        Check(String variable, Function domain, double left, double right) {
+            this.variable = variable;
+            this.domain = domain;
+            this.left = left;
+            this.right = right;
+        }
+    }
+
+    private FunctionCompiler() {
+    }
+
+    public static Function compile(Function function) {
+        if (!isInlined(function) || !fitsLimits(function)) {
+            return function;
+        }
+
+        JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+        if (javac == null) {
+            return function;
+        }
+
+        try {
+            FunctionCompiler compiler = new FunctionCompiler();
+            String source = compiler.generate(function);
+            if (source == null) {
+                return function;
+            }
+
+            MethodHandle constructor = constructor(javac, source);
+            if (constructor == null) {
+                return function;
+            }
+
+            double[] constants = new double[compiler.constants.size()];
+            for (int i = 0; i < constants.length; i++) {
+                constants[i] = compiler.constants.get(i);
+            }
+            return (Function) constructor.invoke(compiler.leaves.toArray(new Function[0]), constants);
+        } catch (Throwable e) {
+            // Переполнение стека здесь означает лишь, что дерево не удалось скомпилировать
+            if (e instanceof Error && !(e instanceof LinkageError) && !(e instanceof StackOverflowError)) {
+                throw (Error) e;
+            }
+            return function;
+        }
+    }
+
+    // Конструктор класса из кэша или только что скомпилированного; null при ошибке компиляции.
+    // Две одновременные компиляции одной формы возможны, в кэше остаётся одна из них
+    private static MethodHandle constructor(JavaCompiler javac, String source) throws Exception {
+        synchronized (CACHE) {
+            MethodHandle cached = CACHE.get(source);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        byte[] bytes = compileSource(javac, source);
+        if (bytes == null) {
+            return null;
+        }
+
+        MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+        MethodHandle constructor = lookup.findConstructor(lookup.lookupClass(),
+                MethodType.methodType(void.class, Function[].class, double[].class));
+        synchronized (CACHE) {
+            CACHE.put(source, constructor);
+        }
+        return constructor;
+    }
+
+    // Не превышает ли дерево MAX_NODES встраиваемых узлов и MAX_DEPTH уровней. Обход без рекурсии;
+    // общие поддеревья считаются столько раз, сколько они встраиваются
+    private static boolean fitsLimits(Function function) {
+        ArrayDeque<Function> stack = new ArrayDeque<>();
+        ArrayDeque<Integer> depths = new ArrayDeque<>();
+        stack.push(function);
+        depths.push(1);
+        int count = 0;
+        while (!stack.isEmpty()) {
+            Function f = stack.pop();
+            int depth = depths.pop();
+            if (++count > MAX_NODES || depth > MAX_DEPTH) {
+                return false;
+            }
+
+            Class<?> type = f.getClass();
+            if (type == Shift.class) {
+                stack.push(((Shift) f).getFunction());
+                depths.push(depth + 1);
+            } else if (type == Scale.class) {
+                stack.push(((Scale) f).getFunction());
+                depths.push(depth + 1);
+            } else if (type == Power.class) {
+                stack.push(((Power) f).getFunction());
+                depths.push(depth + 1);
+            } else if (type == Sum.class || type == Mult.class || type == Composition.class) {
+                Function first = type == Sum.class ? ((Sum) f).getFirstFunction()
+                        : type == Mult.class ? ((Mult) f).getFirstFunction() : ((Composition) f).getFirstFunction();
+                Function second = type == Sum.class ? ((Sum) f).getSecondFunction()
+                        : type == Mult.class ? ((Mult) f).getSecondFunction() : ((Composition) f).getSecondFunction();
+                stack.push(first);
+                depths.push(depth + 1);
+                stack.push(second);
+                depths.push(depth + 1);
+            }
+        }
+        return true;
+    }
+
+    // Узлы, которые встраиваются в код; класс сравнивается точно, чтобы не встроить наследника
+    // с переопределённым поведением
+    private static boolean isInlined(Function f) {
+        Class<?> type = f.getClass();
+        return type == Shift.class || type == Scale.class || type == Power.class
+                || type == Sum.class || type == Mult.class || type == Composition.class
+                || type == Exp.class || type == Log.class || type == Sin.class
+                || type == Cos.class || type == Tan.class;
+    }
+
+    // Все ли узлы поддерева встраиваются; тогда его границы — константы
+    private boolean isKnown(Function f) {
+        Boolean cached = known.get(f);
+        if (cached != null) {
+            return cached;
+        }
+
+        boolean result;
+        if (f.getClass() == Shift.class) {
+            result = isKnown(((Shift) f).getFunction());
+        } else if (f.getClass() == Scale.class) {
+            result = isKnown(((Scale) f).getFunction());
+        } else if (f.getClass() == Power.class) {
+            result = isKnown(((Power) f).getFunction());
+        } else if (f.getClass() == Sum.class) {
+            result = isKnown(((Sum) f).getFirstFunction()) && isKnown(((Sum) f).getSecondFunction());
+        } else if (f.getClass() == Mult.class) {
+            result = isKnown(((Mult) f).getFirstFunction()) && isKnown(((Mult) f).getSecondFunction());
+        } else if (f.getClass() == Composition.class) {
+            result = isKnown(((Composition) f).getFirstFunction())
+                    && isKnown(((Composition) f).getSecondFunction());
+        } else {
+            result = isInlined(f);
+        }
+
+        known.put(f, result);
+        return result;
+    }
+
+    private String generate(Function function) {
+        StringBuilder body = new StringBuilder();
+        String result = emit(function, "x", body, "        ", true);
+        if (result == null) {
+            return null;
+        }
+
+        StringBuilder source = new StringBuilder();
+        source.append("package functions.meta;\n\n");
+        source.append("final class ").append(CLASS_NAME).append(" implements functions.Function {\n");
+        StringBuilder borders = new StringBuilder();
+        borders.append("    public double getLeftDomainBorder() {\n");
+        borders.append("        return ").append(border(function, true)).append(";\n    }\n\n");
+        borders.append("    public double getRightDomainBorder() {\n");
+        borders.append("        return ").append(border(function, false)).append(";\n    }\n\n");
+
+        for (int i = 0; i < leaves.size(); i++) {
+            source.append("    private final functions.Function f").append(i).append(";\n");
+        }
+        for (int i = 0; i < constants.size(); i++) {
+            source.append("    private final double c").append(i).append(";\n");
+        }
+        source.append("\n    ").append(CLASS_NAME).append("(functions.Function[] leaves, double[] constants) {\n");
+        for (int i = 0; i < leaves.size(); i++) {
+            source.append("        f").append(i).append(" = leaves[").append(i).append("];\n");
+        }
+        for (int i = 0; i < constants.size(); i++) {
+            source.append("        c").append(i).append(" = constants[").append(i).append("];\n");
+        }
+        source.append("    }\n\n");
+        source.append(borders);
+        source.append("    public double getFunctionValue(double x) {\n");
+        source.append(body);
+        source.append("        return ").append(result).append(";\n    }\n}\n");
+        return source.toString();
+    }
+
+    // Выражение для границы области определения узла
+    private String border(Function f, boolean left) {
+        if (isKnown(f)) {
+            return constant(left ? f.getLeftDomainBorder() : f.getRightDomainBorder());
+        }
+
+        if (f.getClass() == Shift.class) {
+            Shift shift = (Shift) f;
+            return "(" + border(shift.getFunction(), left) + " + " + constant(shift.getShiftX()) + ")";
+        }
+        if (f.getClass() == Scale.class) {
+            Scale scale = (Scale) f;
+            return "(" + border(scale.getFunction(), left) + " * " + constant(scale.getScaleX()) + ")";
+        }
+        if (f.getClass() == Power.class) {
+            return border(((Power) f).getFunction(), left);
+        }
+        if (f.getClass() == Composition.class) {
+            return border(((Composition) f).getFirstFunction(), left);
+        }
+        if (f.getClass() == Sum.class || f.getClass() == Mult.class) {
+            Function first = f instanceof Sum ? ((Sum) f).getFirstFunction() : ((Mult) f).getFirstFunction();
+            Function second = f instanceof Sum ? ((Sum) f).getSecondFunction() : ((Mult) f).getSecondFunction();
+            return (left ? "Math.max(" : "Math.min(") + border(first, left) + ", " + border(second, left) + ")";
+        }
+        return leaf(f) + (left ? ".getLeftDomainBorder()" : ".getRightDomainBorder()");
+    }
+
+    // Поле с очередным параметром; значение в текст не попадает
+    private String constant(double value) {
+        constants.add(value);
+        return "c" + (constants.size() - 1);
+    }
+
+    private String leaf(Function f) {
+        for (int i = 0; i < leaves.size(); i++) {
+            if (leaves.get(i) == f) {
+                return "f" + i;
+            }
+        }
+        leaves.add(f);
+        return "f" + (leaves.size() - 1);
+    }
+
+    private String newVariable() {
+        return "v" + variables++;
+    }
+
+    // Дописывает в out вычисление узла f от аргумента arg и возвращает имя переменной с результатом;
+    // null, если дерево превысило MAX_NODES. Проверка области корня (root) выходит из метода
+    private String emit(Function f, String arg, StringBuilder out, String indent, boolean root) {
+        if (++nodes > MAX_NODES) {
+            return null;
+        }
+
+        String v = newVariable();
+        Class<?> type = f.getClass();
+        if (type == Exp.class || type == Sin.class || type == Cos.class || type == Tan.class) {
+            String method = type == Exp.class ? "exp" : type == Sin.class ? "sin" : type == Cos.class ? "cos" : "tan";
+            out.append(indent).append("double ").append(v).append(" = Math.").append(method)
+                    .append("(").append(arg).append(");\n");
+            return v;
+        }
+
+        if (type == Log.class) {
+            // Повторяет ветвления Log.getFunctionValue; логарифм основания вычисляется заранее
+            String logBase = constant(Math.log(((Log) f).getBase()));
+            out.append(indent).append("double ").append(v).append(";\n");
+            out.append(indent).append("if (").append(arg).append(" < -1e-10) {\n");
+            out.append(indent).append("    ").append(v).append(" = Double.NaN;\n");
+            out.append(indent).append("} else if (Math.abs(").append(arg).append(") < 1e-10) {\n");
+            out.append(indent).append("    ").append(v).append(" = Double.NEGATIVE_INFINITY;\n");
+            out.append(indent).append("} else if (Math.abs(").append(arg).append(" - 1.0) < 1e-10) {\n");
+            out.append(indent).append("    ").append(v).append(" = 0.0;\n");
+            out.append(indent).append("} else {\n");
+            out.append(indent).append("    ").append(v).append(" = Math.log(").append(arg).append(") / ")
+                    .append(logBase).append(";\n");
+            out.append(indent).append("}\n");
+            return v;
+        }
+
+        if (!isInlined(f)) {
+            out.append(indent).append("double ").append(v).append(" = ").append(leaf(f))
+                    .append(".getFunctionValue(").append(arg).append(");\n");
+            return v;
+        }
+
+        // Мета-функция: проверка области определения, затем вычисление внутри else
+        String checked = arg;
+        Function domain;
+        if (type == Shift.class) {
+            checked = newVariable();
+            out.append(indent).append("double ").append(checked).append(" = ").append(arg).append(" - ")
+                    .append(constant(((Shift) f).getShiftX())).append(";\n");
+            domain = ((Shift) f).getFunction();
+        } else if (type == Scale.class) {
+            checked = newVariable();
+            out.append(indent).append("double ").append(checked).append(" = ").append(arg).append(" / ")
+                    .append(constant(((Scale) f).getScaleX())).append(";\n");
+            domain = ((Scale) f).getFunction();
+        } else {
+            domain = f;
+        }
+        if (type == Power.class) {
+            domain = ((Power) f).getFunction();
+        } else if (type == Composition.class) {
+            domain = ((Composition) f).getFirstFunction();
+        }
+
+        boolean implied = isChecked(checked, domain);
+        // Вложенная проверка открывает блок else, проверка корня выходит из метода
+        boolean nested = !implied && !root;
+        String inner = nested ? indent + "    " : indent;
+        if (!implied) {
+            String condition = checked + " < " + border(domain, true) + " || " + checked + " > "
+                    + border(domain, false);
+            if (root) {
+                out.append(indent).append("if (").append(condition).append(") {\n");
+                out.append(indent).append("    return Double.NaN;\n");
+                out.append(indent).append("}\n");
+            } else {
+                out.append(indent).append("double ").append(v).append(";\n");
+                out.append(indent).append("if (").append(condition).append(") {\n");
+                out.append(indent).append("    ").append(v).append(" = Double.NaN;\n");
+                out.append(indent).append("} else {\n");
+            }
+            boolean constantBorders = isKnown(domain);
+            checks.push(new Check(checked, domain, constantBorders ? domain.getLeftDomainBorder() : Double.NaN,
+                    constantBorders ? domain.getRightDomainBorder() : Double.NaN));
+        }
+
+        String value;
+        if (type == Shift.class) {
+            String child = emit(((Shift) f).getFunction(), checked, out, inner, false);
+            value = child == null ? null : child + " + " + constant(((Shift) f).getShiftY());
+        } else if (type == Scale.class) {
+            String child = emit(((Scale) f).getFunction(), checked, out, inner, false);
+            value = child == null ? null : child + " * " + constant(((Scale) f).getScaleY());
+        } else if (type == Power.class) {
+            String child = emit(((Power) f).getFunction(), arg, out, inner, false);
+            value = child == null ? null : "Math.pow(" + child + ", " + constant(((Power) f).getPower()) + ")";
+        } else if (type == Composition.class) {
+            String first = emit(((Composition) f).getFirstFunction(), arg, out, inner, false);
+            value = first == null ? null : emit(((Composition) f).getSecondFunction(), first, out, inner, false);
+        } else {
+            boolean sum = type == Sum.class;
+            Function firstFunction = sum ? ((Sum) f).getFirstFunction() : ((Mult) f).getFirstFunction();
+            Function secondFunction = sum ? ((Sum) f).getSecondFunction() : ((Mult) f).getSecondFunction();
+            String first = emit(firstFunction, arg, out, inner, false);
+            String second = first == null ? null : emit(secondFunction, arg, out, inner, false);
+            value = second == null ? null : first + (sum ? " + " : " * ") + second;
+        }
+        if (value == null) {
+            return null;
+        }
+
+        if (nested) {
+            out.append(inner).append(v).append(" = ").append(value).append(";\n");
+            out.append(indent).append("}\n");
+            checks.pop();
+        } else {
+            out.append(indent).append("double ").append(v).append(" = ").append(value).append(";\n");
+        }
+        return v;
+    }
+
+    // Следует ли проверка variable по области domain из охватывающих проверок: та же переменная
+    // уже проверена по той же области или по постоянным границам, лежащим внутри постоянных границ domain.
+    // Область на всей прямой не отсекает ничего, кроме того, что не отсекает и сама проверка
+    private boolean isChecked(String variable, Function domain) {
+        boolean constantBorders = isKnown(domain);
+        if (constantBorders && domain.getLeftDomainBorder() == Double.NEGATIVE_INFINITY
+                && domain.getRightDomainBorder() == Double.POSITIVE_INFINITY) {
+            return true;
+        }
+        for (Check check : checks) {
+            if (!check.variable.equals(variable)) {
+                continue;
+            }
+            if (check.domain == domain) {
+                return true;
+            }
+            if (constantBorders && check.left >= domain.getLeftDomainBorder()
+                    && check.right <= domain.getRightDomainBorder()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Компилирует исходный код в памяти; null при ошибке компиляции
+    private static byte[] compileSource(JavaCompiler javac, String source) throws Exception {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        JavaFileObject sourceFile = new SimpleJavaFileObject(
+                URI.create("string:///functions/meta/" + CLASS_NAME + ".java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+
+        StandardJavaFileManager standard = javac.getStandardFileManager(null, null, null);
+        JavaFileManager manager = new ForwardingJavaFileManager<JavaFileManager>(standard) {
+            @Override
+            public JavaFileObject getJavaFileForOutput(JavaFileManager.Location location, String className,
+                    JavaFileObject.Kind kind, FileObject sibling) {
+                return new SimpleJavaFileObject(URI.create("bytes:///" + className.replace('.', '/') + ".class"), kind) {
+                    @Override
+                    public OutputStream openOutputStream() {
+                        return bytes;
+                    }
+                };
+            }
+        };
+
+        List<String> options = new ArrayList<>(Arrays.asList("-classpath", classPath(), "-proc:none", "-g:none"));
+        // Сообщения javac собираются и отбрасываются, чтобы ничего не попадало в System.err
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try {
+            boolean compiled = javac.getTask(Writer.nullWriter(), manager, diagnostics, options, null,
+                    Arrays.asList(sourceFile)).call();
+            return compiled ? bytes.toByteArray() : null;
+        } finally {
+            manager.close();
+        }
+    }
+
+    // Путь, откуда загружен интерфейс Function, и системный путь классов
+    private static String classPath() throws Exception {
+        String systemPath = System.getProperty("java.class.path", "");
+        CodeSource codeSource = Function.class.getProtectionDomain().getCodeSource();
+        if (codeSource == null || codeSource.getLocation() == null) {
+            return systemPath;
+        }
+        String location = Paths.get(codeSource.getLocation().toURI()).toString();
+        return systemPath.isEmpty() ? location : location + File.pathSeparator + systemPath;
+    }
+}
@@ -0,0 +1,232 @@
+package functions.meta;
+
+import functions.Function;
+import functions.basic.Cos;
+import functions.basic.Exp;
+import functions.basic.Log;
+import functions.basic.Sin;
+import functions.basic.Tan;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+// Упрощение дерева мета-функций. Правила применяются снизу вверх.
+// Точные правила: значения и границы упрощённого дерева совпадают с исходными побитово.
+//   Scale(f, 1, 1), Power(f, 1)     -> f
+//   Sum(f, f)                       -> Scale(f, 1, 2)   (y + y и y * 2 равны точно)
+// Остальные правила меняют результат в пределах округления:
+//   Shift(Shift(f, a1, b1), a2, b2) -> Shift(f, a1 + a2, b1 + b2) при конечных сдвигах по X
+//   Scale(Scale(f, a1, b1), a2, b2) -> Scale(f, a1 * a2, b1 * b2) при конечных положительных масштабах по X
+//   Power(Power(f, p), q)           -> Power(f, p * q) только для целых p и q
+//   Shift(f, 0, 0)                  -> f   (y + 0 превращает -0.0 в 0.0)
+//   Mult(f, f)                      -> Power(f, 2)   (Math.pow допускает ошибку в 1 ulp)
+// Объединённые сдвиги и масштабы считаются одним округлением вместо нескольких, и у самой границы
+// исходное дерево и упрощённое могут различаться тем, возвращают ли они NaN.
+// Тождественный узел удаляется, только если f сама возвращает NaN вне своей области
+// (мета-функции, Exp, Sin, Cos, Tan): у Log проверка границы другая.
+// Свёртки констант нет: значения листьев и поддеревьев при упрощении не вычисляются.
+// Правила лишь объединяют параметры соседних узлов (сдвиги, масштабы, показатели)
+// и вычисляют одинаковые слагаемые и множители один раз.
+// simplify() применяет только точные правила и используется при табулировании и интегрировании;
+// optimize() применяет все правила и вызывается только явно
+public final class FunctionOptimizer {
+    private final Map<Function, Function> optimized = new IdentityHashMap<>();
+    // Применять только точные правила
+    private final boolean exact;
+
+    private FunctionOptimizer(boolean exact) {
+        this.exact = exact;
+    }
+
+    // Упрощённое всеми правилами дерево или сама функция, если упрощать нечего
+    public static Function optimize(Function function) {
+        return new FunctionOptimizer(false).rewrite(function);
+    }
+
+    // Дерево, упрощённое только точными правилами, или сама функция
+    public static Function simplify(Function function) {
+        return new FunctionOptimizer(true).rewrite(function);
+    }
+
+    private Function rewrite(Function f) {
+        Function cached = optimized.get(f);
+        if (cached != null) {
+            return cached;
+        }
+
+        Function result = f;
+        Class<?> type = f.getClass();
+        if (type == Shift.class) {
+            Shift shift = (Shift) f;
+            result = shift(f, rewrite(shift.getFunction()), shift.getShiftX(), shift.getShiftY());
+        } else if (type == Scale.class) {
+            Scale scale = (Scale) f;
+            result = scale(f, rewrite(scale.getFunction()), scale.getScaleX(), scale.getScaleY());
+        } else if (type == Power.class) {
+            Power power = (Power) f;
+            result = power(f, rewrite(power.getFunction()), power.getPower());
+        } else if (type == Sum.class) {
+            Sum sum = (Sum) f;
+            Function first = rewrite(sum.getFirstFunction());
+            Function second = rewrite(sum.getSecondFunction());
+            if (isSame(first, second)) {
+                result = new Scale(first, 1.0, 2.0);
+            } else if (first != sum.getFirstFunction() || second != sum.getSecondFunction()) {
+                result = new Sum(first, second);
+            }
+        } else if (type == Mult.class) {
+            Mult mult = (Mult) f;
+            Function first = rewrite(mult.getFirstFunction());
+            Function second = rewrite(mult.getSecondFunction());
+            if (!exact && isSame(first, second)) {
+                result = power(null, first, 2.0);
+            } else if (first != mult.getFirstFunction() || second != mult.getSecondFunction()) {
+                result = new Mult(first, second);
+            }
+        } else if (type == Composition.class) {
+            Composition composition = (Composition) f;
+            Function first = rewrite(composition.getFirstFunction());
+            Function second = rewrite(composition.getSecondFunction());
+            if (first != composition.getFirstFunction() || second != composition.getSecondFunction()) {
+                result = new Composition(first, second);
+            }
+        }
+
+        optimized.put(f, result);
+        return result;
+    }
+
+    // Узел Shift над уже упрощённым f; original — исходный узел, если его можно вернуть без изменений
+    private Function shift(Function original, Function f, double shiftX, double shiftY) {
+        if (!exact && f.getClass() == Shift.class) {
+            Shift inner = (Shift) f;
+            double fusedX = inner.getShiftX() + shiftX;
+            if (isFinite(shiftX) && isFinite(inner.getShiftX()) && isFinite(fusedX)) {
+                return shift(null, inner.getFunction(), fusedX, inner.getShiftY() + shiftY);
+            }
+        }
+        if (!exact && shiftX == 0 && shiftY == 0 && checksOwnDomain(f)) {
+            return f;
+        }
+        if (original != null && ((Shift) original).getFunction() == f) {
+            return original;
+        }
+        return new Shift(f, shiftX, shiftY);
+    }
+
+    private Function scale(Function original, Function f, double scaleX, double scaleY) {
+        if (!exact && f.getClass() == Scale.class) {
+            Scale inner = (Scale) f;
+            double fusedX = inner.getScaleX() * scaleX;
+            // При отрицательном масштабе границы внутреннего узла переставлены и он везде даёт NaN,
+            // поэтому такие узлы не объединяются
+            if (isPositiveScale(scaleX) && isPositiveScale(inner.getScaleX()) && isPositiveScale(fusedX)) {
+                return scale(null, inner.getFunction(), fusedX, inner.getScaleY() * scaleY);
+            }
+        }
+        if (scaleX == 1 && scaleY == 1 && checksOwnDomain(f)) {
+            return f;
+        }
+        if (original != null && ((Scale) original).getFunction() == f) {
+            return original;
+        }
+        return new Scale(f, scaleX, scaleY);
+    }
+
+    private Function power(Function original, Function f, double power) {
+        if (!exact && f.getClass() == Power.class) {
+            Power inner = (Power) f;
+            // (y^p)^q = y^(pq) верно для любых y только при целых показателях
+            if (isInteger(power) && isInteger(inner.getPower())) {
+                return power(null, inner.getFunction(), inner.getPower() * power);
+            }
+        }
+        if (power == 1 && checksOwnDomain(f)) {
+            return f;
+        }
+        if (original != null && ((Power) original).getFunction() == f) {
+            return original;
+        }
+        return new Power(f, power);
+    }
+
+    private static boolean isFinite(double value) {
+        return !Double.isInfinite(value) && !Double.isNaN(value);
+    }
+
+    private static boolean isPositiveScale(double scale) {
+        return scale > 0 && isFinite(scale);
+    }
+
+    private static boolean isInteger(double value) {
+        return value == Math.rint(value) && Math.abs(value) < 1L << 26;
+    }
+
+    // Возвращает ли функция NaN для любого аргумента вне своих границ. У Scale с отрицательным
+    // масштабом границы переставлены, а проверяет он аргумент по границам внутренней функции
+    private static boolean checksOwnDomain(Function f) {
+        Class<?> type = f.getClass();
+        if (type == Scale.class) {
+            return ((Scale) f).getScaleX() > 0;
+        }
+        return type == Shift.class || type == Power.class
+                || type == Sum.class || type == Mult.class || type == Composition.class
+                || type == Exp.class || type == Sin.class || type == Cos.class || type == Tan.class;
+    }
+
+    // Структурное равенство деревьев; прочие функции равны, только если это один объект
+    private static boolean isSame(Function a, Function b) {
+        if (a == b) {
+            return true;
+        }
+        Class<?> type = a.getClass();
+        if (type != b.getClass()) {
+            return false;
+        }
+
+        if (type == Exp.class || type == Sin.class || type == Cos.class || type == Tan.class) {
+            return true;
+        }
+        if (type == Log.class) {
+            return Double.compare(((Log) a).getBase(), ((Log) b).getBase()) == 0;
+        }
+        if (type == Shift.class) {
+            Shift x = (Shift) a;
+            Shift y = (Shift) b;
+            return Double.compare(x.getShiftX(), y.getShiftX()) == 0
+                    && Double.compare(x.getShiftY(), y.getShiftY()) == 0
+                    && isSame(x.getFunction(), y.getFunction());
+        }
+        if (type == Scale.class) {
+            Scale x = (Scale) a;
+            Scale y = (Scale) b;
+            return Double.compare(x.getScaleX(), y.getScaleX()) == 0
+                    && Double.compare(x.getScaleY(), y.getScaleY()) == 0
+                    && isSame(x.getFunction(), y.getFunction());
+        }
+        if (type == Power.class) {
+            Power x = (Power) a;
+            Power y = (Power) b;
+            return Double.compare(x.getPower(), y.getPower()) == 0 && isSame(x.getFunction(), y.getFunction());
+        }
+        if (type == Sum.class) {
+            Sum x = (Sum) a;
+            Sum y = (Sum) b;
+            return isSame(x.getFirstFunction(), y.getFirstFunction())
+                    && isSame(x.getSecondFunction(), y.getSecondFunction());
+        }
+        if (type == Mult.class) {
+            Mult x = (Mult) a;
+            Mult y = (Mult) b;
+            return isSame(x.getFirstFunction(), y.getFirstFunction())
+                    && isSame(x.getSecondFunction(), y.getSecondFunction());
+        }
+        if (type == Composition.class) {
+            Composition x = (Composition) a;
+            Composition y = (Composition) b;
+            return isSame(x.getFirstFunction(), y.getFirstFunction())
+                    && isSame(x.getSecondFunction(), y.getSecondFunction());
+        }
+        return false;
+    }
+}
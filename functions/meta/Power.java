@@ -10,6 +10,14 @@ public class Power implements Function {
         this.f = f;
         this.power = power;
     }
+
+    public Function getFunction() {
+        return f;
+    }
+
+    public double getPower() {
+        return power;
+    }
     
     public double getLeftDomainBorder() {
         return f.getLeftDomainBorder();
@@ -25,4 +33,17 @@ public class Power implements Function {
         }
         return Math.pow(f.getFunctionValue(x), power);
     }
+
+    @Override
+    public void getFunctionValues(double[] arguments, double[] values, int from, int to) {
+        if (!Domains.contains(this, arguments, from, to)) {
+            Function.super.getFunctionValues(arguments, values, from, to);
+            return;
+        }
+
+        f.getFunctionValues(arguments, values, from, to);
+        for (int i = from; i < to; i++) {
+            values[i] = Math.pow(values[i], power);
+        }
+    }
 }
@@ -12,6 +12,18 @@ public class Scale implements Function {
         this.scaleX = scaleX;
         this.scaleY = scaleY;
     }
+
+    public Function getFunction() {
+        return f;
+    }
+
+    public double getScaleX() {
+        return scaleX;
+    }
+
+    public double getScaleY() {
+        return scaleY;
+    }
     
     public double getLeftDomainBorder() {
         return f.getLeftDomainBorder() * scaleX;
@@ -28,4 +40,25 @@ public class Scale implements Function {
         }
         return f.getFunctionValue(originalX) * scaleY;
     }
+
+    @Override
+    public void getFunctionValues(double[] arguments, double[] values, int from, int to) {
+        double left = f.getLeftDomainBorder();
+        double right = f.getRightDomainBorder();
+        for (int i = from; i < to; i++) {
+            double originalX = arguments[i] / scaleX;
+            if (originalX < left || originalX > right) {
+                Function.super.getFunctionValues(arguments, values, from, to);
+                return;
+            }
+        }
+
+        for (int i = from; i < to; i++) {
+            values[i] = arguments[i] / scaleX;
+        }
+        f.getFunctionValues(values, values, from, to);
+        for (int i = from; i < to; i++) {
+            values[i] *= scaleY;
+        }
+    }
 }
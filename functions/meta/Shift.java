@@ -12,6 +12,18 @@ public class Shift implements Function {
         this.shiftX = shiftX;
         this.shiftY = shiftY;
     }
+
+    public Function getFunction() {
+        return f;
+    }
+
+    public double getShiftX() {
+        return shiftX;
+    }
+
+    public double getShiftY() {
+        return shiftY;
+    }
     
     public double getLeftDomainBorder() {
         return f.getLeftDomainBorder() + shiftX;
@@ -28,4 +40,25 @@ public class Shift implements Function {
         }
         return f.getFunctionValue(originalX) + shiftY;
     }
+
+    @Override
+    public void getFunctionValues(double[] arguments, double[] values, int from, int to) {
+        double left = f.getLeftDomainBorder();
+        double right = f.getRightDomainBorder();
+        for (int i = from; i < to; i++) {
+            double originalX = arguments[i] - shiftX;
+            if (originalX < left || originalX > right) {
+                Function.super.getFunctionValues(arguments, values, from, to);
+                return;
+            }
+        }
+
+        for (int i = from; i < to; i++) {
+            values[i] = arguments[i] - shiftX;
+        }
+        f.getFunctionValues(values, values, from, to);
+        for (int i = from; i < to; i++) {
+            values[i] += shiftY;
+        }
+    }
 }
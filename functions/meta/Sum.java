@@ -10,6 +10,14 @@ public class Sum implements Function {
         this.f1 = f1;
         this.f2 = f2;
     }
+
+    public Function getFirstFunction() {
+        return f1;
+    }
+
+    public Function getSecondFunction() {
+        return f2;
+    }
     
     public double getLeftDomainBorder() {
         // Пересечение областей определения
@@ -28,4 +36,26 @@ public class Sum implements Function {
         }
         return f1.getFunctionValue(x) + f2.getFunctionValue(x);
     }
+
+    @Override
+    public void getFunctionValues(double[] arguments, double[] values, int from, int to) {
+        // Одна проверка области определения на весь пакет; если есть точки вне неё — поточечный путь
+        if (!Domains.contains(this, arguments, from, to)) {
+            Function.super.getFunctionValues(arguments, values, from, to);
+            return;
+        }
+
+        // Пакет обрабатывается частями через один буфер: в него копируются аргументы части,
+        // f2 вычисляется в нём на месте, затем f1 пишет в values (arguments и values могут совпадать)
+        double[] second = new double[Math.min(to - from, Domains.CHUNK)];
+        for (int start = from; start < to; start += second.length) {
+            int count = Math.min(second.length, to - start);
+            System.arraycopy(arguments, start, second, 0, count);
+            f2.getFunctionValues(second, second, 0, count);
+            f1.getFunctionValues(arguments, values, start, start + count);
+            for (int i = 0; i < count; i++) {
+                values[start + i] += second[i];
+            }
+        }
+    }
 }